@@ -0,0 +1,88 @@
+package com.syntax_highlighters.chess.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the board operations used most by the game and the AI.
+ *
+ * Every benchmark runs on each reference position of Perft, for the player
+ * to move. The benchmarks of a move run over all legal moves of the
+ * position, so one operation is one pass over them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param
+    public Perft.Reference position;
+
+    private ChessGame game;
+    private Board board;
+    private Color color;
+    private List<Move> moves;
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        board = game.getBoard();
+        color = game.nextPlayerColor();
+        moves = game.allPossibleMoves();
+    }
+
+    @Benchmark
+    public Board copy() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public List<IChessPiece> getAllPieces() {
+        return board.getAllPieces();
+    }
+
+    @Benchmark
+    public void moveDoesntPutKingInCheck(Blackhole blackhole) {
+        for (Move move : moves) blackhole.consume(board.moveDoesntPutKingInCheck(move, color));
+    }
+
+    @Benchmark
+    public boolean checkMate() {
+        return board.checkMate(color);
+    }
+
+    @Benchmark
+    public int evaluateScore() {
+        return game.evaluateScore(color);
+    }
+
+    @Benchmark
+    public void doAndUndoMove() {
+        for (Move move : moves) {
+            move.DoMove(board);
+            move.UndoMove(board);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.syntax_highlighters.chess.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.ChessGame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the move generation of each kind of piece.
+ *
+ * One operation generates the moves of every piece of the kind belonging to
+ * the player to move, in each reference position of Perft.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    // in the order of the piece types of BitBoard
+    private static final List<String> PIECES = Arrays.asList("PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING");
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public String piece;
+
+    @Param
+    public Perft.Reference position;
+
+    private Board board;
+    private List<IChessPiece> pieces;
+
+    @Setup
+    public void setUp() {
+        ChessGame game = position.game();
+        board = game.getBoard();
+        int type = PIECES.indexOf(piece);
+        pieces = new ArrayList<>();
+        for (IChessPiece p : board.getAllPieces(game.nextPlayerColor())) {
+            if (p.getPieceType() == type) pieces.add(p);
+        }
+    }
+
+    @Benchmark
+    public void allPossibleMoves(Blackhole blackhole) {
+        for (IChessPiece p : pieces) blackhole.consume(p.allPossibleMoves(board));
+    }
+}
@@ -0,0 +1,79 @@
+package com.syntax_highlighters.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.syntax_highlighters.chess.ai.AiDifficulty;
+import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.SearchBudget;
+import com.syntax_highlighters.chess.ai.TranspositionTable;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of a whole search for a move by the Hard AI.
+ *
+ * Each reference position of Perft is searched to a fixed depth on one
+ * thread, without the opening book or the tablebases. Every search starts
+ * with an empty transposition table and the same seed, so every operation
+ * does the same work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param
+    public Perft.Reference position;
+
+    @Param({"5"})
+    public int depth;
+
+    private EngineExecutor executor;
+    private MiniMaxAIPlayer ai;
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        executor = new EngineExecutor(1, Thread.NORM_PRIORITY);
+        ai = new MiniMaxAIPlayer(AiDifficulty.Hard, TranspositionTable.DEFAULT_MEGABYTES, executor);
+        ai.SetBudget(new SearchBudget(depth, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        ai.SetThreads(1);
+        ai.SetOpeningBook(null);
+        ai.SetTablebase(null);
+        game = position.game();
+    }
+
+    @Setup(Level.Invocation)
+    public void newGame() {
+        ai.NewGame();
+        ai.SetSeed(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Move getMove() {
+        return ai.GetMove(game);
+    }
+}
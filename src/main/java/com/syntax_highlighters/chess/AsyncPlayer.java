@@ -1,159 +1,160 @@
 package com.syntax_highlighters.chess;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.syntax_highlighters.chess.engine.EngineExecutor;
 import com.syntax_highlighters.chess.game.AbstractGame;
 import com.syntax_highlighters.chess.move.Move;
 
 /**
  * Interface for async players players.
  *
- * Wraps a player (AI, online, etc.) that needs to be polled for updates
- * rather than have a blocking interface.
+ * Wraps a player (AI, online, etc.) with a blocking interface, so that its
+ * moves can be requested without blocking. A requested move is computed on an
+ * executor and delivered through a CompletableFuture, to which callbacks can
+ * be attached. A request can be cancelled, which tells the player to stop
+ * thinking, and can be given a deadline, after which the player plays the best
+ * move it has found so far.
+ *
+ * Only one move is requested at a time.
  */
 public class AsyncPlayer {
-    private final Wrapper wrapper;
+    private final IBlockingPlayer player;
+    private final EngineExecutor executor;
+    private Request current = null; // guarded by this
+    private volatile Throwable error = null;
 
     /**
-     * Create an AsyncPlayer wrapping a blocking player.
+     * Create an AsyncPlayer wrapping a blocking player, getting its moves on
+     * an executor of its own.
      */
     public AsyncPlayer(IBlockingPlayer p) {
-        wrapper = new Wrapper(p);
+        this(p, new EngineExecutor(1, EngineExecutor.DEFAULT_PRIORITY));
     }
 
     /**
-     * Get a move synchronously from the player.
-     * @param game The game to work with.
-     * @return The received move or null.
+     * Create an AsyncPlayer wrapping a blocking player, getting its moves on
+     * the given executor.
+     *
+     * @param p The blocking player
+     * @param executor The executor to get the moves on
      */
-    public Move getMove(AbstractGame game) {
-        return wrapper.getMoveSynchronous(game);
+    public AsyncPlayer(IBlockingPlayer p, EngineExecutor executor) {
+        this.player = p;
+        this.executor = executor;
     }
 
     /**
-     * Get a move asynchronously from the player.
+     * Get a move synchronously from the player.
      * @param game The game to work with.
      * @return The received move or null.
      */
-    public Move pollMove(AbstractGame game) {
-        switch (wrapper.getState()) {
-            case Done: return wrapper.getResult();
-            case Waiting: wrapper.startProcess(game);
-            default: return null;
-        }
+    public Move getMove(AbstractGame game) {
+        return player.GetMove(game);
     }
 
     /**
-     * Returns true if the player can no longer perform moves.
-     * @return true if the player can no longer perform moves.
+     * Request a move from the player, without a deadline.
+     *
+     * @param game The game to work with.
+     * @return A future completing with the move, or null if the player found
+     * none
      */
-    private boolean hasCrashed() {
-        return wrapper.getEx() == null;
+    public CompletableFuture<Move> requestMove(AbstractGame game) {
+        return requestMove(game, new StopFlag());
     }
 
     /**
-     * Get a friendly error message if the player has crashed.
-     * @return The error message.
+     * Request a move from the player, to be found within the given time.
+     *
+     * @param game The game to work with.
+     * @param timeoutMillis The time the player may think, in milliseconds
+     * @return A future completing with the move, or null if the player found
+     * none
      */
-    public String getError() {
-        return hasCrashed() ? wrapper.getEx().getMessage() : null;
+    public CompletableFuture<Move> requestMove(AbstractGame game, long timeoutMillis) {
+        return requestMove(game, new StopFlag(timeoutMillis));
     }
-}
-
-/**
- * Helper class: wrapper for the blocking player interface.
- */
-class Wrapper {
-    private State state = State.Waiting;
-    private Move result = null;
-    private final IBlockingPlayer player;
-    private Exception ex;
 
     /**
-     * Construct a new Wrapper.
-     *
-     * @param player The blocking player to wrap
+     * Helper method: start a request, unless one is already running, in which
+     * case its future is returned.
      */
-    Wrapper(IBlockingPlayer player) {
-        this.player = player;
+    private synchronized CompletableFuture<Move> requestMove(AbstractGame game, StopFlag stop) {
+        if (current != null && !current.future.isDone()) return current.future;
+
+        CompletableFuture<Move> future = CompletableFuture.supplyAsync(() -> player.GetMove(game, stop), executor);
+        future.whenComplete((move, ex) -> {
+            if (ex != null && !future.isCancelled()) error = ex instanceof CompletionException ? ex.getCause() : ex;
+        });
+        current = new Request(future, stop);
+        return future;
     }
 
     /**
-     * Get a move in a synchronous manner.
+     * Cancel the requested move, if any.
      *
-     * Presumably assumes that the player *can* perform a move.
-     *
-     * @param game The current game state
-     * @return The move chosen by the blocking player
+     * The future of the request completes as cancelled right away, and the
+     * player is told to stop thinking.
      */
-    Move getMoveSynchronous(AbstractGame game) {
-        return player.GetMove(game);
+    public synchronized void cancel() {
+        if (current == null) return;
+        current.stop.stop();
+        current.future.cancel(false);
+        current = null;
     }
 
     /**
-     * Start a new thread where the blocking player attempts to retrieve a move.
+     * Get a move asynchronously from the player, by polling.
      *
-     * Sets the state of the wrapper.
+     * The first call requests a move, and later calls return it once it is
+     * found.
      *
-     * @param game The game state
+     * @param game The game to work with.
+     * @return The received move, or null if it is not found yet.
      */
-    void startProcess(AbstractGame game) {
-        if (state != State.Waiting) return;
-        state = State.Runnning;
-        new Thread(() -> {
-            try {
-                result = player.GetMove(game);
-            } catch (Exception ex) {
-                this.ex = ex;
-            } finally {
-                state = State.Done;
-            }
-        }).start();
-    }
+    public synchronized Move pollMove(AbstractGame game) {
+        if (current == null) {
+            requestMove(game);
+            return null;
+        }
+        if (!current.future.isDone()) return null;
 
-    /**
-     * Determine the wrapper state.
-     *
-     * @return The current state of the player attempting to get a move
-     */
-    public State getState() {
-        return state;
+        CompletableFuture<Move> done = current.future;
+        current = null;
+        if (done.isCompletedExceptionally()) return null;
+        return done.getNow(null);
     }
 
     /**
-     * Get the resulting move from the player.
+     * Check whether the player is thinking about a move.
      *
-     * @return The move the player made, or null if either no move has been made
-     * or the process of getting a move has not yet started.
+     * @return true if a requested move is not found yet
      */
-    Move getResult() {
-        if (state == State.Done) {
-            Move r = result;
-            result = null;
-            state = State.Waiting;
-            return r;
-        }
-        else return null;
+    public synchronized boolean isThinking() {
+        return current != null && !current.future.isDone();
     }
 
     /**
-     * Get the last exception that was thrown.
-     * 
-     * Makes it possible to figure out what went wrong and display a helpful
-     * message in the UI, while handling errors in a graceful (non-crashing)
-     * manner.
-     *
-     * @return The last thrown exception
+     * Get a friendly error message if the player has crashed.
+     * @return The error message, or null if the player has not crashed.
      */
-    Exception getEx() {
-        return ex;
+    public String getError() {
+        Throwable ex = error;
+        return ex == null ? null : String.valueOf(ex.getMessage());
     }
 
     /**
-     * State of the wrapper: determines which stage of the move getting process
-     * it is in.
+     * Helper class: a requested move, and the flag to stop it.
      */
-    public enum State {
-        Waiting,
-        Runnning,
-        Done,
+    private static final class Request {
+        final CompletableFuture<Move> future;
+        final StopFlag stop;
+
+        Request(CompletableFuture<Move> future, StopFlag stop) {
+            this.future = future;
+            this.stop = stop;
+        }
     }
 }
@@ -1,12 +1,10 @@
 package com.syntax_highlighters.chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
-import java.util.Map;
-import java.util.HashMap;
 
 import com.syntax_highlighters.chess.chesspiece.AbstractChessPiece;
 import com.syntax_highlighters.chess.chesspiece.ChessPieceBishop;
@@ -16,13 +14,19 @@ import com.syntax_highlighters.chess.chesspiece.ChessPiecePawn;
 import com.syntax_highlighters.chess.chesspiece.ChessPieceQueen;
 import com.syntax_highlighters.chess.chesspiece.ChessPieceRook;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.Evaluation;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.engine.Zobrist;
 import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.PackedMove;
 
 /**
  * Holds the current state of the board.
  *
- * The board state is stored in a 8x8 grid containing the pieces (null values
- * signifying empty squares).
+ * The board state is stored in a 64 square array containing the pieces (null
+ * values signifying empty squares), mirrored by a set of bitboards which allow
+ * the AI and move generation to query the board using word-level operations.
  *
  * The white player starts at rows 1 and 2
  * The black player starts at rows 7 and 8
@@ -31,22 +35,39 @@ public class    Board {
     // constants, just in case
     public static final int BOARD_WIDTH = 8;
     public static final int BOARD_HEIGHT = 8;
+
+    // castling rights, as returned by getCastlingRights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
     
     private Move lastMove;
-    private IChessPiece whiteKing = null; // For caching purposes.
-    private IChessPiece blackKing = null; // For caching purposes.
+    private int doubleStep = -1; // pawn that double stepped in makeMove, if any
+    private Color sideToMove = Color.WHITE;
 
     // for performance
-    private final int[][] positionsLookupTable = new int[BOARD_HEIGHT][BOARD_WIDTH];
-    private final Map<Color, List<IChessPiece>> piecesOfColor = new HashMap<>();
-
-    private List<IChessPiece> pieces = new ArrayList<>();
+    private final IChessPiece[] squares = new IChessPiece[BOARD_WIDTH * BOARD_HEIGHT];
+    private final BitBoard bitBoard = new BitBoard();
+    private long pieceKey = 0L; // Zobrist key of the pieces only
+    // piece-square totals per color, and the game phase, see Evaluation
+    private final int[] middlegameScore = new int[2];
+    private final int[] endgameScore = new int[2];
+    private int phase = 0;
+
+    // undo stack for makeMove/unmakeMove, one entry per move made
+    private int undoSize = 0;
+    private int[] undoMove = new int[64];
+    private IChessPiece[] undoPiece = new IChessPiece[64];
+    private IChessPiece[] undoCaptured = new IChessPiece[64];
+    private boolean[] undoHadMoved = new boolean[64];
+    private Move[] undoLastMove = new Move[64];
+    private int[] undoDoubleStep = new int[64];
 
     /**
      * Create an empty board.
      */
     public Board() {
-        initBoard();
     }
 
     /**
@@ -54,58 +75,59 @@ public class    Board {
      * @param pieces The pieces that belong to the board.
      */
     public Board(List<IChessPiece> pieces) {
-        this.pieces.addAll(pieces);
-        initBoard();
+        for (IChessPiece p : pieces) {
+            putAtPosition(p.getPosition(), p);
+        }
     }
 
     /**
-     * Helper method: reinitialize all positions on the board.
+     * Helper method: return the square index of a position.
+     *
+     * No bounds checks.
      *
-     * Modifies positionsLookupTable.
+     * @param pos The position to look up.
+     * @return The index of the position in the squares array and bitboards
      */
-    private void initBoard() {
-        // expensive if we must do it a lot, but hopefully we won't have to
-        for (int i = 0; i < BOARD_HEIGHT; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                positionsLookupTable[i][j] = -1;
-            }
-        }
-        // fill in all the positions of the pieces currently on the board
-        for (int i = 0; i < this.pieces.size(); i++) {
-            updatePositionIndex(this.pieces.get(i).getPosition(), i);
-        }
-
-        piecesOfColor.put(Color.WHITE, new ArrayList<>(pieces.stream()
-                .filter(p->p.getColor()==Color.WHITE)
-                .collect(Collectors.toList())));
-        piecesOfColor.put(Color.BLACK, new ArrayList<>(pieces.stream()
-                .filter(p->p.getColor()==Color.BLACK)
-                .collect(Collectors.toList())));
+    private static int squareOf(Position pos) {
+        return BitBoard.square(pos.getX(), pos.getY());
     }
 
     /**
-     * Helper method: update the lookup table's index based on the position.
+     * Helper method: remove all pieces from the board.
      *
-     * Modifies positionsLookupTable. No bounds checks.
-     * @param pos The position to update.
-     * @param index The index to save.
+     * Modifies the squares array and the bitboards.
      */
-    private void updatePositionIndex(Position pos, int index) {
-        positionsLookupTable[pos.getY()-1][pos.getX()-1] = index;
+    private void clearBoard() {
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = null;
+        }
+        bitBoard.clear();
+        pieceKey = 0L;
+        middlegameScore[BitBoard.WHITE] = middlegameScore[BitBoard.BLACK] = 0;
+        endgameScore[BitBoard.WHITE] = endgameScore[BitBoard.BLACK] = 0;
+        phase = 0;
     }
 
     /**
-     * Helper method: return the index of the piece with the given position in
-     * the list of pieces, or -1 if the position is empty.
+     * Get the bitboards of the board.
      *
-     * No bounds checks.
+     * NOTE: Returns a reference to the internal bitboards, which are kept up
+     * to date as pieces are put on or removed from the board. Do not modify.
      *
-     * @param pos The position to look up.
-     * @return The index of the piece occupying the position in the pieces list,
-     * if the position is occupied, or -1 otherwise
+     * @return The bitboards describing the current board state
+     */
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    /**
+     * Get the piece on a given square.
+     *
+     * @param square The square index, 0 (a1) to 63 (h8)
+     * @return The piece on the square, or null if the square is empty
      */
-    private int lookupPositionIndex(Position pos) {
-        return positionsLookupTable[pos.getY()-1][pos.getX()-1];
+    public IChessPiece getAtSquare(int square) {
+        return squares[square];
     }
 
     /**
@@ -124,11 +146,11 @@ public class    Board {
         };
 
         // reset board
-        this.pieces = new ArrayList<>();
         this.lastMove = null;
-        this.whiteKing = null; // For caching purposes.
-        this.blackKing = null; // For caching purposes.
-        initBoard();
+        this.doubleStep = -1;
+        this.sideToMove = Color.WHITE;
+        this.undoSize = 0;
+        clearBoard();
 
         // add all white pieces
         for (String p : whitePieces) {
@@ -164,8 +186,8 @@ public class    Board {
             }
 
             // If both kings are still alive, don't try again.
-            long kings = getAllPieces().stream().filter(p -> p instanceof ChessPieceKing).count();
-            if (kings == 2) break;
+            if (bitBoard.pieceCount(BitBoard.WHITE, BitBoard.KING) == 1
+                    && bitBoard.pieceCount(BitBoard.BLACK, BitBoard.KING) == 1) break;
         }
     }
     /**
@@ -193,23 +215,49 @@ public class    Board {
     public void putAtPosition(Position pos, IChessPiece piece) {
         assert isOnBoard(pos);
         
-        IChessPiece target = getAtPosition(pos);
-        if (target != null) {
+        int to = squareOf(pos);
+        IChessPiece target = squares[to];
+        if (target != null && target != piece) {
             removePiece(target);
         }
 
+        int color = BitBoard.colorIndex(piece.getColor());
+        int type = piece.getPieceType();
         Position oldPos = piece.getPosition();
+        int from = -1;
+        if (oldPos != null && isOnBoard(oldPos) && squares[squareOf(oldPos)] == piece) {
+            // the piece is already on the board, so move it
+            from = squareOf(oldPos);
+            squares[from] = null;
+            removeFromTotals(color, type, from);
+        }
+
         piece.setPosition(pos); // ensure position is correct for this piece
-        updatePositionIndex(oldPos, -1);
+        squares[to] = piece;
+        if (from == -1) bitBoard.add(color, type, to);
+        else if (from != to) bitBoard.move(color, type, from, to);
+        addToTotals(color, type, to);
+    }
 
-        if (!this.pieces.contains(piece)) {
-            this.pieces.add(piece);
-            updatePositionIndex(pos, this.pieces.size()-1); // the index of the newly added piece
-            piecesOfColor.get(piece.getColor()).add(piece);
-        }
-        else {
-            updatePositionIndex(pos, this.pieces.indexOf(piece));
-        }
+    /**
+     * Helper method: add a piece on a square to the hash and the evaluation.
+     */
+    private void addToTotals(int color, int type, int square) {
+        pieceKey ^= Zobrist.piece(color, type, square);
+        middlegameScore[color] += Evaluation.middlegame(color, type, square);
+        endgameScore[color] += Evaluation.endgame(color, type, square);
+        phase += Evaluation.phaseWeight(type);
+    }
+
+    /**
+     * Helper method: remove a piece on a square from the hash and the
+     * evaluation.
+     */
+    private void removeFromTotals(int color, int type, int square) {
+        pieceKey ^= Zobrist.piece(color, type, square);
+        middlegameScore[color] -= Evaluation.middlegame(color, type, square);
+        endgameScore[color] -= Evaluation.endgame(color, type, square);
+        phase -= Evaluation.phaseWeight(type);
     }
 
     /**
@@ -272,11 +320,7 @@ public class    Board {
     public IChessPiece getAtPosition(Position pos) {
         //assert isOnBoard(pos);
         if (!isOnBoard(pos)) return null;
-        int index = lookupPositionIndex(pos);
-        if (index != -1) {
-            return this.pieces.get(index);
-        }
-        return null;
+        return squares[squareOf(pos)];
     }
 
     /**
@@ -286,14 +330,35 @@ public class    Board {
      */
     public List<IChessPiece> getAllPieces() {
         // Ensure that manipulating the returned list cannot modify the internal
-        // list of the board
+        // state of the board
         // This does not fully encapsulate the board, but it does hopefully help
         // against accidentally adding/removing pieces without intending to
-        return new ArrayList<>(this.pieces);
+        return piecesOn(bitBoard.occupied());
     }
     
+    /**
+     * Return a list of all the pieces of the given color on the board.
+     *
+     * @param color The color of the pieces
+     * @return A list of all the pieces of that color currently on the board.
+     */
     public List<IChessPiece> getAllPieces(Color color) {
-        return new ArrayList<>(piecesOfColor.get(color));
+        return piecesOn(bitBoard.occupancy(BitBoard.colorIndex(color)));
+    }
+
+    /**
+     * Helper method: collect the pieces on the squares of a bitboard.
+     *
+     * @param mask The squares to collect the pieces of
+     * @return A new list of the pieces, ordered by square
+     */
+    private List<IChessPiece> piecesOn(long mask) {
+        List<IChessPiece> ret = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            ret.add(squares[Long.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1;
+        }
+        return ret;
     }
 
     /**
@@ -331,7 +396,11 @@ public class    Board {
      * old one
      */
     public Board copy() {
-        return new Board(copyPieces());
+        Board copy = new Board(copyPieces());
+        copy.lastMove = lastMove;
+        copy.doubleStep = doubleStep;
+        copy.sideToMove = sideToMove;
+        return copy;
     }
 
     /**
@@ -351,9 +420,11 @@ public class    Board {
      * @return A copied list
      */
     private List<IChessPiece> copyPieces() {
-        List<IChessPiece> ret = new ArrayList<>();
-        for (IChessPiece p : pieces) {
-            ret.add(p.copy());
+        List<IChessPiece> ret = new ArrayList<>(bitBoard.pieceCount());
+        for (IChessPiece p : getAllPieces()) {
+            IChessPiece copy = p.copy();
+            copy.setHasMoved(p.hasMoved()); // needed for castling and double steps
+            ret.add(copy);
         }
         return ret;
     }
@@ -395,11 +466,10 @@ public class    Board {
      * @return true if the given player is in checkmate, false otherwise
      */
     public boolean checkMate(Color playerColor) {
-        List<IChessPiece> allPieces = getAllPieces();
-        if (allPieces.size() == 0) return false; // not possible
-        ChessPieceKing king = (ChessPieceKing)getKing(playerColor);
-        return king == null || king.isThreatened(this) && getAllPieces(playerColor).stream()
-                .mapToLong(p -> p.allPossibleMoves(this).size()).sum() == 0;
+        if (bitBoard.pieceCount() == 0) return false; // not possible
+        if (getKing(playerColor) == null) return true;
+        return MoveGenerator.inCheck(this, playerColor)
+            && MoveGenerator.legalMoves(this, playerColor).isEmpty();
     }
 
     /**
@@ -413,7 +483,7 @@ public class    Board {
         StringBuilder b = new StringBuilder();
         for (int y = 8; y >= 1; y--) {
             for (int x = 1; x <= 8; x++) {
-                IChessPiece p = this.getAtPosition(new Position(x, y));
+                IChessPiece p = squares[BitBoard.square(x, y)];
                 if (p != null) {
                     if (p instanceof ChessPieceKing) b.append("K");
                     if (p instanceof ChessPieceQueen) b.append("Q");
@@ -432,50 +502,34 @@ public class    Board {
     /**
      * Removes a piece from the board.
      *
-     * In order to not invalidate all the positions in the lookup table, swap
-     * the piece in the list with the last piece, before removing
+     * The piece keeps its position, so that it can be put back on the board
+     * later on. Does nothing if the piece is not on the board.
      *
      * @param p The piece to remove from the board.
      */
     public void removePiece(IChessPiece p) {
-        int index = lookupPositionIndex(p.getPosition());
-        assert(index >= 0 && index < pieces.size());
-        int lastPieceIndex = pieces.size()-1;
-        if (index != lastPieceIndex) {
-            IChessPiece lastPieceInList = pieces.get(lastPieceIndex);
-            pieces.set(index, lastPieceInList);
-            updatePositionIndex(lastPieceInList.getPosition(), index);
-        }
-        
-        // p should now be at the end of the list
-        pieces.remove(pieces.size()-1);
-        updatePositionIndex(p.getPosition(), -1);
-        piecesOfColor.get(p.getColor()).remove(p);
+        Position pos = p.getPosition();
+        if (!isOnBoard(pos)) return;
+        int square = squareOf(pos);
+        if (squares[square] != p) return;
+
+        int color = BitBoard.colorIndex(p.getColor());
+        int type = p.getPieceType();
+        squares[square] = null;
+        bitBoard.remove(color, type, square);
+        removeFromTotals(color, type, square);
     }
 
     /**
-     * Find the king of the specified color and caches the result.
+     * Find the king of the specified color.
      *
      * @param color The color of king to look for.
-     * @return The king of the specified color.
+     * @return The king of the specified color, or null if there is none.
      */
     public IChessPiece getKing(Color color) {
-        if (color.isWhite()) {
-            if (whiteKing == null) {
-                whiteKing = getAllPieces(Color.WHITE).stream()
-                        .filter(p -> p instanceof ChessPieceKing)
-                        .findFirst().orElse(null);
-            }
-            return whiteKing;
-        }
-        else {
-            if (blackKing == null) {
-                blackKing = getAllPieces(Color.BLACK).stream()
-                        .filter(p -> p instanceof ChessPieceKing)
-                        .findFirst().orElse(null);
-            }
-            return blackKing;
-        }
+        long kings = bitBoard.pieces(BitBoard.colorIndex(color), BitBoard.KING);
+        if (kings == 0) return null;
+        return squares[Long.numberOfTrailingZeros(kings)];
     }
 
     /**
@@ -484,5 +538,291 @@ public class    Board {
      */
     public void setLastMove(Move m) {
         this.lastMove = m;
+        this.doubleStep = -1;
+    }
+
+    /**
+     * Set the square of a pawn which double stepped in the last move.
+     *
+     * Used when setting up a position where en passant is possible, without a
+     * Move to set as the last move. Clears the last move.
+     *
+     * @param square The square index of the pawn, or -1 for none
+     */
+    public void setDoubleStepSquare(int square) {
+        this.lastMove = null;
+        this.doubleStep = square;
+    }
+
+    /**
+     * Get the square of a pawn which double stepped in the last move.
+     *
+     * The last move is either the one set with setLastMove, or one made with
+     * makeMove, whichever happened most recently.
+     *
+     * @return The square index of the pawn, or -1 if the last move was not a
+     * double step by a pawn
+     */
+    public int getDoubleStepSquare() {
+        if (lastMove == null) return doubleStep;
+        Position from = lastMove.getOldPosition();
+        Position to = lastMove.getPosition();
+        if (from.getX() != to.getX() || Math.abs(from.getY() - to.getY()) != 2) return -1;
+        int square = squareOf(to);
+        if ((bitBoard.pieces(BitBoard.PAWN) & (1L << square)) == 0) return -1;
+        return square;
+    }
+
+    /**
+     * Get the color of the player to move next.
+     *
+     * Kept in sync by the game, and included in the hash of the board.
+     *
+     * @return The color of the player to move
+     */
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Set the color of the player to move next.
+     *
+     * @param color The color of the player to move
+     */
+    public void setSideToMove(Color color) {
+        this.sideToMove = color;
+    }
+
+    /**
+     * Get the castling rights of both players.
+     *
+     * A player may castle to a side as long as neither their king nor the rook
+     * on that side has moved. Whether castling is possible right now (the
+     * squares between them being empty and unthreatened) is not considered.
+     *
+     * @return A combination of the WHITE_KINGSIDE, WHITE_QUEENSIDE,
+     * BLACK_KINGSIDE and BLACK_QUEENSIDE flags
+     */
+    public int getCastlingRights() {
+        int rights = 0;
+        if (unmoved(BitBoard.square(5, 1), BitBoard.WHITE, BitBoard.KING)) {
+            if (unmoved(BitBoard.square(8, 1), BitBoard.WHITE, BitBoard.ROOK)) rights |= WHITE_KINGSIDE;
+            if (unmoved(BitBoard.square(1, 1), BitBoard.WHITE, BitBoard.ROOK)) rights |= WHITE_QUEENSIDE;
+        }
+        if (unmoved(BitBoard.square(5, 8), BitBoard.BLACK, BitBoard.KING)) {
+            if (unmoved(BitBoard.square(8, 8), BitBoard.BLACK, BitBoard.ROOK)) rights |= BLACK_KINGSIDE;
+            if (unmoved(BitBoard.square(1, 8), BitBoard.BLACK, BitBoard.ROOK)) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    /**
+     * Helper method: check whether an unmoved piece of the given kind stands
+     * on a square.
+     */
+    private boolean unmoved(int square, int color, int type) {
+        IChessPiece p = squares[square];
+        return p != null && !p.hasMoved()
+            && (bitBoard.pieces(color, type) & (1L << square)) != 0;
+    }
+
+    /**
+     * Get the file on which a pawn can currently be captured en passant.
+     *
+     * This is the case if the last move was a double step by a pawn, and an
+     * enemy pawn stands beside it.
+     *
+     * @return The file of the pawn, 0 (a) to 7 (h), or -1 if no en passant
+     * capture is possible
+     */
+    public int getEnPassantFile() {
+        int square = getDoubleStepSquare();
+        if (square < 0) return -1;
+        int color = bitBoard.colorAt(square);
+
+        // an enemy pawn must stand directly beside the pawn to capture it
+        int file = square & 7;
+        long beside = 0L;
+        if (file > 0) beside |= 1L << (square - 1);
+        if (file < BOARD_WIDTH - 1) beside |= 1L << (square + 1);
+        if ((bitBoard.pieces(color ^ 1, BitBoard.PAWN) & beside) == 0) return -1;
+        return file;
+    }
+
+    /**
+     * Get the static evaluation of the board for a player.
+     *
+     * The material and piece-square totals of both players are kept up to
+     * date as pieces are put on and removed from the board, so this is cheap
+     * to call. The middlegame and endgame scores are blended by how much
+     * material is left.
+     *
+     * @param color The color of the player to evaluate for
+     * @return The score of the player minus the score of the opponent
+     *
+     * @see Evaluation
+     */
+    public int evaluate(Color color) {
+        int us = BitBoard.colorIndex(color);
+        int them = us ^ 1;
+        return Evaluation.taper(middlegameScore[us] - middlegameScore[them],
+                endgameScore[us] - endgameScore[them], phase);
+    }
+
+    /**
+     * Get the Zobrist hash of the board state.
+     *
+     * Covers the pieces and their positions, the side to move, the castling
+     * rights and the en passant file. The piece part is updated incrementally
+     * whenever pieces are put on or removed from the board, so this is cheap
+     * to call.
+     *
+     * @return A 64-bit hash of the board state
+     */
+    public long hash() {
+        long key = pieceKey ^ Zobrist.castling(getCastlingRights());
+        if (sideToMove.isBlack()) key ^= Zobrist.side();
+        int epFile = getEnPassantFile();
+        if (epFile >= 0) key ^= Zobrist.enPassant(epFile);
+        return key;
+    }
+
+    /**
+     * Perform a packed move.
+     *
+     * Unlike Move.DoMove, all the state needed to take the move back is kept
+     * on the board, in a stack which is only grown when needed. The move itself
+     * is a plain value and can be shared freely. Moves are undone in reverse
+     * order with unmakeMove.
+     *
+     * The move must be legal in the current position, for instance one from
+     * the MoveGenerator. Flips the side to move.
+     *
+     * @param move The packed move to perform
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        IChessPiece piece = squares[from];
+
+        IChessPiece captured = null;
+        if (flags == PackedMove.EN_PASSANT) {
+            // the captured pawn stands beside the capturing one
+            captured = squares[(from & ~7) | (to & 7)];
+        }
+        else if (PackedMove.isCapture(move)) {
+            captured = squares[to];
+        }
+        pushUndo(move, piece, captured);
+
+        if (captured != null) removePiece(captured);
+        if (flags == PackedMove.KING_CASTLE) {
+            // like CastlingMove, castling leaves the moved flags alone
+            putAtPosition(Position.fromIndex(from + 1), squares[from + 3]);
+        }
+        else if (flags == PackedMove.QUEEN_CASTLE) {
+            putAtPosition(Position.fromIndex(from - 1), squares[from - 4]);
+        }
+        else {
+            piece.setHasMoved(true);
+        }
+
+        Position toPos = Position.fromIndex(to);
+        putAtPosition(toPos, piece);
+        if (PackedMove.isPromotion(move)) {
+            removePiece(piece);
+            putAtPosition(toPos, AbstractChessPiece.fromPieceType(
+                        PackedMove.promotionType(move), toPos, piece.getColor()));
+        }
+
+        lastMove = null;
+        doubleStep = flags == PackedMove.DOUBLE_PAWN_PUSH ? to : -1;
+        sideToMove = sideToMove.opponentColor();
+    }
+
+    /**
+     * Pass the turn without moving (a null move).
+     *
+     * Not a legal chess move, but used by the search to find out how strong
+     * a position is even if the opponent could move twice. Taken back with
+     * unmakeMove like any other move.
+     */
+    public void makeNullMove() {
+        pushUndo(PackedMove.NONE, null, null);
+        lastMove = null;
+        doubleStep = -1;
+        sideToMove = sideToMove.opponentColor();
+    }
+
+    /**
+     * Take back the last move performed with makeMove or makeNullMove.
+     *
+     * Restores the pieces, their moved flags, the last move and the side to
+     * move, and with them the hash of the board.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) throw new IllegalStateException("No move to unmake");
+        undoSize--;
+        int move = undoMove[undoSize];
+        IChessPiece piece = undoPiece[undoSize];
+        IChessPiece captured = undoCaptured[undoSize];
+        undoPiece[undoSize] = null; // don't keep captured pieces alive
+        undoCaptured[undoSize] = null;
+
+        if (move == PackedMove.NONE) {
+            // a null move; only the turn changed
+            lastMove = undoLastMove[undoSize];
+            undoLastMove[undoSize] = null;
+            doubleStep = undoDoubleStep[undoSize];
+            sideToMove = sideToMove.opponentColor();
+            return;
+        }
+
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+
+        if (PackedMove.isPromotion(move)) removePiece(squares[to]);
+        putAtPosition(Position.fromIndex(from), piece);
+        piece.setHasMoved(undoHadMoved[undoSize]);
+
+        if (flags == PackedMove.KING_CASTLE) {
+            putAtPosition(Position.fromIndex(from + 3), squares[from + 1]);
+        }
+        else if (flags == PackedMove.QUEEN_CASTLE) {
+            putAtPosition(Position.fromIndex(from - 4), squares[from - 1]);
+        }
+        if (captured != null) putAtPosition(captured.getPosition(), captured);
+
+        lastMove = undoLastMove[undoSize];
+        undoLastMove[undoSize] = null;
+        doubleStep = undoDoubleStep[undoSize];
+        sideToMove = sideToMove.opponentColor();
+    }
+
+    /**
+     * Helper method: save the state needed to unmake a move, growing the undo
+     * stack if it is full.
+     */
+    private void pushUndo(int move, IChessPiece piece, IChessPiece captured) {
+        if (undoSize == undoMove.length) {
+            int capacity = undoSize * 2;
+            undoMove = Arrays.copyOf(undoMove, capacity);
+            undoPiece = Arrays.copyOf(undoPiece, capacity);
+            undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+            undoHadMoved = Arrays.copyOf(undoHadMoved, capacity);
+            undoLastMove = Arrays.copyOf(undoLastMove, capacity);
+            undoDoubleStep = Arrays.copyOf(undoDoubleStep, capacity);
+        }
+        undoMove[undoSize] = move;
+        undoPiece[undoSize] = piece;
+        undoCaptured[undoSize] = captured;
+        undoHadMoved[undoSize] = piece != null && piece.hasMoved();
+        undoLastMove[undoSize] = lastMove;
+        undoDoubleStep[undoSize] = doubleStep;
+        undoSize++;
     }
 }
@@ -17,4 +17,19 @@ public interface IBlockingPlayer {
      * @return A legal Move the player can make given the game state
      */
     Move GetMove(AbstractGame game);
+
+    /**
+     * Retrieve a legal move given the game state, stopping early when told to.
+     *
+     * Players able to stop thinking should check the flag regularly, and
+     * return the best move found so far once it is raised. By default the
+     * flag is ignored.
+     *
+     * @param game The game state
+     * @param stop The flag telling the player to stop
+     * @return A legal Move the player can make given the game state
+     */
+    default Move GetMove(AbstractGame game, StopFlag stop) {
+        return GetMove(game);
+    }
 }
@@ -3,13 +3,18 @@ package com.syntax_highlighters.chess;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays; // asList
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects; // Objects.hash
 
 /**
  * Position on a grid (x, y).
  *
  * This class should be immutable. The Position is one-based.
+ *
+ * Positions on the board are interned: use {@link #of(int, int)} rather than
+ * the constructor to get the shared instance of a square, so that move
+ * generation does not need to allocate any positions. All off-board
+ * coordinates map to the {@link #OFF_BOARD} sentinel.
  */
 public class Position implements Serializable {
     private final int x;
@@ -20,10 +25,38 @@ public class Position implements Serializable {
      * in order to prevent cross-version serialization.
      */
     private static final long serialVersionUID = 1;
+
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 8;
+
+    // interned positions, indexed by index()
+    private static final Position[] SQUARES = new Position[WIDTH * HEIGHT];
+    // neighbors of the interned positions, indexed by index()
+    private static final List<List<Position>> NEIGHBORS = new ArrayList<>(WIDTH * HEIGHT);
+
+    /**
+     * Sentinel for all positions outside the board.
+     *
+     * Its coordinates are (0, 0), and its index is -1.
+     */
+    public static final Position OFF_BOARD = new Position(0, 0);
+
+    static {
+        for (int y = 1; y <= HEIGHT; y++) {
+            for (int x = 1; x <= WIDTH; x++) {
+                SQUARES[(y - 1) * WIDTH + (x - 1)] = new Position(x, y);
+            }
+        }
+        for (Position p : SQUARES) {
+            NEIGHBORS.add(Collections.unmodifiableList(p.computeNeighbors()));
+        }
+    }
     
     /**
      * Constructor.
      *
+     * Prefer {@link #of(int, int)}, which does not allocate.
+     *
      * @param x The X coordinate on the board
      * @param y The Y coordinate on the board
      */
@@ -31,6 +64,48 @@ public class Position implements Serializable {
         this.x = x; this.y = y;
     }
 
+    /**
+     * Get the interned Position for the given coordinates.
+     *
+     * @param x The X coordinate on the board
+     * @param y The Y coordinate on the board
+     * @return The shared instance for the square, or OFF_BOARD if the
+     * coordinates are outside the board
+     */
+    public static Position of(int x, int y) {
+        if (!onBoard(x, y)) return OFF_BOARD;
+        return SQUARES[(y - 1) * WIDTH + (x - 1)];
+    }
+
+    /**
+     * Get the interned Position for a square index.
+     *
+     * @param index The index of the square, 0 (a1) to 63 (h8)
+     * @return The shared instance for the square
+     */
+    public static Position fromIndex(int index) {
+        return SQUARES[index];
+    }
+
+    /**
+     * Helper method: check whether coordinates are on the board.
+     */
+    private static boolean onBoard(int x, int y) {
+        return x >= 1 && x <= WIDTH && y >= 1 && y <= HEIGHT;
+    }
+
+    /**
+     * Get the index of this Position, counting rank by rank from a1.
+     *
+     * Matches the square indices used by the board's bitboards.
+     *
+     * @return A number from 0 (a1) to 63 (h8), or -1 if the position is
+     * outside the board
+     */
+    public int index() {
+        if (!onBoard(x, y)) return -1;
+        return (y - 1) * WIDTH + (x - 1);
+    }
 
     /**
      * Get the X coordinate of this Position.
@@ -57,7 +132,7 @@ public class Position implements Serializable {
      * @return A new position n steps above this position
      */
     public Position north(int nSteps) {
-        return new Position(this.x, this.y + nSteps);
+        return offset(0, nSteps);
     }
 
     /**
@@ -67,7 +142,7 @@ public class Position implements Serializable {
      * @return A new position n steps below this position
      */
     public Position south(int nSteps) {
-        return new Position(this.x, this.y - nSteps);
+        return offset(0, -nSteps);
     }
 
     /**
@@ -77,7 +152,7 @@ public class Position implements Serializable {
      * @return A new position n steps to the left of this position
      */
     public Position west(int nSteps) {
-        return new Position(this.x - nSteps, this.y);
+        return offset(-nSteps, 0);
     }
     
     /**
@@ -87,7 +162,7 @@ public class Position implements Serializable {
      * @return A new position n steps to the right of this position
      */
     public Position east(int nSteps) {
-        return new Position(this.x + nSteps, this.y);
+        return offset(nSteps, 0);
     }
 
     /**
@@ -97,7 +172,7 @@ public class Position implements Serializable {
      * @return A new position n steps above and to the left of this position
      */
     public Position northwest(int nSteps) {
-        return new Position(this.x - nSteps, this.y + nSteps);
+        return offset(-nSteps, nSteps);
     }
     
     /**
@@ -107,7 +182,7 @@ public class Position implements Serializable {
      * @return A new position n steps above and to the right of this position
      */
     public Position northeast(int nSteps) {
-        return new Position(this.x + nSteps, this.y + nSteps);
+        return offset(nSteps, nSteps);
     }
     
     /**
@@ -117,7 +192,7 @@ public class Position implements Serializable {
      * @return A new position n steps below and to the left of this position
      */
     public Position southwest(int nSteps) {
-        return new Position(this.x - nSteps, this.y - nSteps);
+        return offset(-nSteps, -nSteps);
     }
     
     /**
@@ -127,18 +202,40 @@ public class Position implements Serializable {
      * @return A new position n steps below and to the right of this position
      */
     public Position southeast(int nSteps) {
-        return new Position(this.x + nSteps, this.y - nSteps);
+        return offset(nSteps, -nSteps);
+    }
+
+    /**
+     * Helper method: the position dx steps right and dy steps up.
+     *
+     * Positions outside the board keep their coordinates, since callers may
+     * step back onto the board from there.
+     */
+    private Position offset(int dx, int dy) {
+        int nx = this.x + dx;
+        int ny = this.y + dy;
+        if (onBoard(nx, ny)) return SQUARES[(ny - 1) * WIDTH + (nx - 1)];
+        return new Position(nx, ny);
     }
 
     /**
      * Return all the neighbors of a Position.
      *
      * A neighbor is any adjacent or diagonally adjacent Position to this
-     * position. No bounds checks.
+     * position. No bounds checks. The list is shared and cannot be modified.
      *
      * @return A list of this postion's neighbors
      */
     public List<Position> neighbors() {
+        int index = index();
+        if (index >= 0) return NEIGHBORS.get(index);
+        return computeNeighbors();
+    }
+
+    /**
+     * Helper method: create the list of neighbors.
+     */
+    private List<Position> computeNeighbors() {
         return Arrays.asList(
                 north    (1), south    (1),
                 east     (1), west     (1),
@@ -181,14 +278,11 @@ public class Position implements Serializable {
             final int dx = (int)Math.signum(xdiff); // -1, 0 or 1
             final int dy = (int)Math.signum(ydiff); // -1, 0 or 1
             
-            // create a manipulator which returns the next position in the given
-            // direction
-            Manipulator m = p -> new Position(p.getX() + dx, p.getY() + dy);
-            Position current = m.transform(this); // start from the first position
-            do {
+            Position current = offset(dx, dy); // start from the first position
+            while (!goal.equals(current)) {
                 intermediatePositions.add(current);
-                current = m.transform(current);
-            } while (!goal.equals(current));
+                current = current.offset(dx, dy);
+            }
         }
         
         intermediatePositions.add(goal); // add final position, regardless
@@ -248,7 +342,7 @@ public class Position implements Serializable {
         
         int xPos = file - 'a' + 1;
         int yPos = rank - '0';
-        return new Position(xPos, yPos);
+        return of(xPos, yPos);
     }
 
     /**
@@ -270,12 +364,22 @@ public class Position implements Serializable {
     /**
      * Custom hashCode method.
      *
-     * Use Objects.hash for simplicity. Considers the x and y coordinate.
+     * Considers the x and y coordinate, without boxing them.
      *
      * @return The hash of the Position
      */
     @Override
     public int hashCode() {
-        return Objects.hash(this.x, this.y);
+        return 31 * this.x + this.y;
+    }
+
+    /**
+     * Helper method: replace deserialized positions by the interned instance.
+     *
+     * @return The shared instance if the position is on the board
+     */
+    private Object readResolve() {
+        int index = index();
+        return index >= 0 ? SQUARES[index] : this;
     }
 }
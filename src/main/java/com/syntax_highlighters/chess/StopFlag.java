@@ -0,0 +1,49 @@
+package com.syntax_highlighters.chess;
+
+/**
+ * A flag telling a player to stop thinking about its move.
+ *
+ * The flag is raised either explicitly, when the move is no longer wanted, or
+ * by passing its deadline, when the player should settle for the best move it
+ * has found so far. A player checks the flag now and then while thinking, and
+ * returns as soon as it sees it raised.
+ */
+public final class StopFlag {
+    private final boolean hasDeadline;
+    private final long deadline; // System.nanoTime
+    private volatile boolean stopped = false;
+
+    /**
+     * Create a flag without a deadline.
+     */
+    public StopFlag() {
+        hasDeadline = false;
+        deadline = 0;
+    }
+
+    /**
+     * Create a flag which is raised after the given time.
+     *
+     * @param timeoutMillis The time until the deadline, in milliseconds
+     */
+    public StopFlag(long timeoutMillis) {
+        hasDeadline = true;
+        deadline = System.nanoTime() + Math.min(timeoutMillis, Long.MAX_VALUE / 2000000) * 1000000;
+    }
+
+    /**
+     * Raise the flag.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Check whether the flag has been raised, or its deadline has passed.
+     *
+     * @return true if the player should stop thinking
+     */
+    public boolean isStopped() {
+        return stopped || (hasDeadline && System.nanoTime() - deadline >= 0);
+    }
+}
@@ -0,0 +1,229 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.move.Move;
+
+/**
+ * A deterministic benchmark of the AI search, which catches changes in what
+ * the search finds and in how much work it takes to find it.
+ *
+ * The reference positions of Perft are searched to a fixed depth by a Hard AI
+ * on one thread, each with an empty transposition table, the same seed, and
+ * neither the opening book nor the tablebases. Nothing then depends on the
+ * timing or the machine: the same code always searches the same nodes and
+ * finds the same principal variations.
+ *
+ * The result holds the number of nodes and the principal variation of each
+ * position, and a signature: a hash of all the principal variations. A
+ * different signature means the search finds different moves, which is
+ * either a bug or an intended change of the search; more nodes mean it got
+ * less efficient. The tests compare the result with a baseline checked in
+ * with the code, which is updated along with intended changes.
+ */
+public final class Bench {
+    public static final int DEFAULT_DEPTH = 6;
+    private static final long SEED = 1;
+
+    private int depth;
+    private final Map<String, Long> nodes = new LinkedHashMap<>();
+    private final Map<String, String> lines = new LinkedHashMap<>();
+    private long signature;
+
+    private Bench(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Search every reference position to a depth.
+     *
+     * @param depth The depth to search to, in plies
+     * @return The result of the searches
+     */
+    public static Bench run(int depth) {
+        Bench bench = new Bench(depth);
+        EngineExecutor executor = new EngineExecutor(1, Thread.NORM_PRIORITY);
+        try {
+            MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard, TranspositionTable.DEFAULT_MEGABYTES, executor);
+            ai.SetBudget(new SearchBudget(depth, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+            ai.SetThreads(1);
+            ai.SetOpeningBook(null);
+            ai.SetTablebase(null);
+            for (Perft.Reference ref : Perft.Reference.values()) {
+                ai.NewGame();
+                ai.SetSeed(SEED);
+                ai.GetMove(ref.game());
+                List<String> line = new ArrayList<>();
+                for (Move move : ai.GetPrincipalVariation()) line.add(move.toString());
+                bench.add(ref.name(), ai.GetSearchReport().getNodes(), String.join(" ", line));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        bench.signature = bench.computeSignature();
+        return bench;
+    }
+
+    /**
+     * Read a result written by format.
+     *
+     * @param text The lines of the result
+     * @return The result
+     *
+     * @throws IllegalArgumentException if a line cannot be read
+     */
+    public static Bench parse(List<String> text) {
+        Bench bench = new Bench(0);
+        for (String line : text) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+", 3);
+            try {
+                switch (parts[0]) {
+                    case "depth": bench.depth = Integer.parseInt(parts[1]); break;
+                    case "nodes": break; // the sum of the others
+                    case "signature": bench.signature = Long.parseUnsignedLong(parts[1], 16); break;
+                    default: bench.add(parts[0], Long.parseLong(parts[1]), parts.length > 2 ? parts[2] : ""); break;
+                }
+            }
+            catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid bench line: " + line, e);
+            }
+        }
+        if (bench.depth < 1) throw new IllegalArgumentException("The bench has no depth");
+        return bench;
+    }
+
+    /**
+     * Write the result as lines of text: the depth, a line for every
+     * position with its number of nodes and principal variation, the total
+     * number of nodes and the signature.
+     *
+     * @return The lines
+     */
+    public List<String> format() {
+        List<String> text = new ArrayList<>();
+        text.add("# Bench of the AI search, see " + Bench.class.getName());
+        text.add("depth " + depth);
+        for (String position : getPositions()) {
+            text.add(position + " " + nodes.get(position) + " " + lines.get(position));
+        }
+        text.add("nodes " + getNodes());
+        text.add("signature " + String.format("%016x", signature));
+        return text;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the names of the positions, in the order searched.
+     *
+     * @return The names of the reference positions
+     */
+    public Set<String> getPositions() {
+        return nodes.keySet();
+    }
+
+    /**
+     * Get the number of nodes searched in a position.
+     *
+     * @param position The name of the position
+     * @return The number of nodes, or 0 for an unknown position
+     */
+    public long getNodes(String position) {
+        return nodes.getOrDefault(position, 0L);
+    }
+
+    /**
+     * Get the total number of nodes searched.
+     *
+     * @return The number of nodes of all positions together
+     */
+    public long getNodes() {
+        long total = 0;
+        for (long n : nodes.values()) total += n;
+        return total;
+    }
+
+    /**
+     * Get the principal variation found in a position.
+     *
+     * @param position The name of the position
+     * @return The moves, separated by spaces, or null for an unknown position
+     */
+    public String getLine(String position) {
+        return lines.get(position);
+    }
+
+    /**
+     * Get the signature of the principal variations of all positions.
+     *
+     * @return A hash of the positions and their principal variations
+     */
+    public long getSignature() {
+        return signature;
+    }
+
+    /**
+     * Search the reference positions and print the result, and write it to
+     * a file to make it the new baseline.
+     *
+     * Usage: Bench [depth [baselineFile]]. By default the search goes to
+     * depth 6.
+     *
+     * @param args The depth and the file to write the result to
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        long start = System.nanoTime();
+        Bench bench = run(depth);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        List<String> text = bench.format();
+        for (String line : text) System.out.println(line);
+        System.out.printf("%,d ms, %,d nodes per second%n", millis, bench.getNodes() * 1000 / Math.max(millis, 1));
+        if (args.length > 1) {
+            Files.write(Paths.get(args[1]), text, StandardCharsets.UTF_8);
+            System.out.println("Wrote " + args[1]);
+        }
+    }
+
+    /**
+     * Helper method: add the result of a position.
+     */
+    private void add(String position, long positionNodes, String line) {
+        nodes.put(position, positionNodes);
+        lines.put(position, line);
+    }
+
+    /**
+     * Helper method: hash the names and principal variations of the
+     * positions (64-bit FNV-1a).
+     */
+    private long computeSignature() {
+        long hash = 0xcbf29ce484222325L;
+        for (String position : getPositions()) {
+            String entry = position + " " + lines.get(position) + "\n";
+            for (int i = 0; i < entry.length(); i++) {
+                hash ^= entry.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
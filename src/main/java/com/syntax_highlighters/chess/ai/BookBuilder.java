@@ -0,0 +1,151 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * Builds an opening book from a text file of opening lines.
+ *
+ * Every line of the text file is a sequence of moves from the initial
+ * position, in long algebraic notation like "e2e4 e7e5 g1f3". Anything after
+ * a '#' is a comment. Every move of every line is added to the book, with a
+ * weight of the number of lines playing it, so that moves common to many
+ * lines are picked more often.
+ *
+ * Run the main method to build the book shipped with the game.
+ *
+ * @see OpeningBook
+ */
+public final class BookBuilder {
+    private static final String DEFAULT_INPUT = "assets/book/openings.txt";
+    private static final String DEFAULT_OUTPUT = "assets/book/openings.bin";
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    // key -> book move -> weight, the keys in the order of the book
+    private final Map<Long, Map<Integer, Integer>> entries = new TreeMap<>(Long::compareUnsigned);
+    private final MoveGenerator generator = new MoveGenerator();
+    private int size = 0;
+
+    /**
+     * Build the book from a text file.
+     *
+     * Usage: BookBuilder [input [output]]. By default the book shipped with
+     * the game is rebuilt.
+     *
+     * @param args The paths of the text file and the book to write
+     *
+     * @throws IOException if the text file cannot be read, or the book
+     * cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path input = Paths.get(args.length > 0 ? args[0] : DEFAULT_INPUT);
+        Path output = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+
+        BookBuilder builder = new BookBuilder();
+        List<String> lines = Files.readAllLines(input, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                builder.addLine(lines.get(i));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(input + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(output)) {
+            builder.write(out);
+        }
+        System.out.printf("%d lines, %d entries written to %s%n", lines.size(), builder.size(), output);
+    }
+
+    /**
+     * Add the moves of an opening line.
+     *
+     * @param line The moves from the initial position, separated by
+     * whitespace, optionally followed by a comment
+     *
+     * @throws IllegalArgumentException if a move is not legal
+     */
+    public void addLine(String line) {
+        int comment = line.indexOf('#');
+        if (comment >= 0) line = line.substring(0, comment);
+        line = line.trim();
+        if (line.isEmpty()) return;
+
+        Board board = Fen.parse(Fen.START);
+        MoveList moves = new MoveList();
+        for (String token : line.split("\\s+")) {
+            moves.clear();
+            generator.generate(board, board.getSideToMove(), 0L, moves);
+            int move = find(moves, token);
+            add(board.hash(), OpeningBook.encode(move));
+            board.makeMove(move);
+        }
+    }
+
+    /**
+     * Get the number of entries added.
+     *
+     * @return The number of position and move pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write the book, sorted by key.
+     *
+     * @param out The stream to write to
+     *
+     * @throws IOException if the book cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        for (Map.Entry<Long, Map<Integer, Integer>> position : entries.entrySet()) {
+            // the most played moves first, as in Polyglot
+            List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(position.getValue().entrySet());
+            moves.sort((a, b) -> b.getValue() - a.getValue());
+            for (Map.Entry<Integer, Integer> move : moves) {
+                data.writeLong(position.getKey());
+                data.writeShort(move.getKey());
+                data.writeShort(Math.min(move.getValue(), MAX_WEIGHT));
+                data.writeInt(0);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Helper method: add one play of a move from a position.
+     */
+    private void add(long key, int bookMove) {
+        Map<Integer, Integer> moves = entries.computeIfAbsent(key, k -> new TreeMap<>());
+        if (!moves.containsKey(bookMove)) size++;
+        moves.merge(bookMove, 1, Integer::sum);
+    }
+
+    /**
+     * Helper method: find a move by its long algebraic notation.
+     */
+    private static int find(MoveList moves, String move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toString(moves.get(i)).equals(move)) return moves.get(i);
+        }
+        throw new IllegalArgumentException("Illegal move " + move);
+    }
+}
@@ -2,6 +2,7 @@ package com.syntax_highlighters.chess.ai;
 
 import com.syntax_highlighters.chess.game.AbstractGame;
 import com.syntax_highlighters.chess.IBlockingPlayer;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
 import com.syntax_highlighters.chess.move.Move;
 
 /**
@@ -17,6 +18,40 @@ public interface IAiPlayer extends IBlockingPlayer {
      */
     void SetDifficulty(AiDifficulty diff);
 
+    /**
+     * Get the limits on how long this AI player searches for a move.
+     *
+     * Set along with the difficulty level.
+     *
+     * @return The search budget of a move
+     */
+    SearchBudget GetBudget();
+
+    /**
+     * Get the executor this AI player thinks on.
+     *
+     * Running the AI's moves on the same executor keeps all of its threads
+     * within the executor's bounds.
+     *
+     * @return The executor of the AI player
+     */
+    EngineExecutor GetExecutor();
+
+    /**
+     * Get the statistics of the last search.
+     *
+     * @return The report of the last move chosen, or SearchReport.EMPTY
+     * before the first
+     */
+    SearchReport GetSearchReport();
+
+    /**
+     * Set a listener to report the progress of every search to.
+     *
+     * @param listener The listener, or null for none
+     */
+    void SetSearchListener(SearchListener listener);
+
     /**
      * Choose a move and perform it on the board.
      *
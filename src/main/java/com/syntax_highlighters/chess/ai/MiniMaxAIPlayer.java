@@ -1,14 +1,23 @@
 package com.syntax_highlighters.chess.ai;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
-import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.StopFlag;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Evaluation;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
 import com.syntax_highlighters.chess.game.AbstractGame;
 import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
 
 /**
  * A chess AI trying to find the best move by using a minimaxing algorithm.
@@ -16,7 +25,7 @@ import com.syntax_highlighters.chess.move.Move;
  * The AI attempts to simulate many different moves for a certain number of
  * turns ahead, in order to determine which move is the best move to make in a
  * given situation. The difficulty setting of the AI determines how far it
- * attempts to look ahead.
+ * attempts to look ahead, and how long it may think about a move.
  *
  * In order to determine the best move to make, the AI recursively simulates the
  * best move by the next player until it has reached the depth it is allowed to
@@ -28,15 +37,50 @@ import com.syntax_highlighters.chess.move.Move;
  * number of branches on the move tree you need to explore by eliminating
  * branches which obviously result in bad scores as early as possible, in order
  * to drastically decrease the running time of the algorithm.
+ *
+ * At the end of the search, captures are played out until the position is
+ * quiet (quiescence search), so that the AI does not misjudge a position in
+ * the middle of an exchange.
+ *
+ * Results are remembered in a transposition table, which is kept between moves
+ * and shared by all search threads.
+ *
+ * In the opening, moves are taken from an opening book instead of searched.
+ * In endgames with few pieces, the result is looked up in the endgame
+ * tablebases, both at the root and in the search.
  */
 public class MiniMaxAIPlayer implements IAiPlayer {
-    private static final int EASY_DEPTH = 3;
-    private static final int MED_DEPTH = 4;
-    private static final int HARD_DEPTH = 4;
-    private static final int SHORTSIGHTED_DEPTH = 3;
-    private int diff;
-    private final Random rand;
+    private static final int MAX_PLY = 64;
+    private static final SearchBudget EASY_BUDGET = new SearchBudget(3, 250, 200000);
+    private static final SearchBudget MED_BUDGET = new SearchBudget(8, 1000, 3000000);
+    private static final SearchBudget HARD_BUDGET = new SearchBudget(MAX_PLY - 1, 2000, SearchBudget.UNLIMITED);
+    private static final SearchBudget SHORTSIGHTED_BUDGET = new SearchBudget(3, 500, SearchBudget.UNLIMITED);
+    private static final int MATE = 100000; // minus the plies to the mate
+    private static final int MATE_BOUND = MATE - 1000; // scores above are mates
+    private static final int INF = 1000000000; // can be negated, unlike MIN_VALUE
+    private static final int TABLEBASE_WIN = MATE_BOUND / 2; // minus the ply, for a won endgame
+    private static final int DEFAULT_QUIESCENCE_DEPTH = 8;
+    private static final int DELTA_MARGIN = 200; // positional swing allowed by delta pruning
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_DEPTH_MOVES = 4; // moves searched before reducing
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 50; // around the last score, widened on failure
+    private static final int ROOT_NOISE = 5; // the largest random change to the score of a root move
+    private SearchBudget budget;
+    private SplittableRandom random = new SplittableRandom();
+    private final TranspositionTable table;
+    private final EngineExecutor executor;
     private double chanceOfMistake = 0.0;
+    private int quiescenceDepth = DEFAULT_QUIESCENCE_DEPTH;
+    private boolean nullMovePruning = false;
+    private boolean lateMoveReductions = false;
+    private List<Move> principalVariation = Collections.emptyList();
+    private SearchReport report = SearchReport.EMPTY;
+    private SearchListener listener;
+    private OpeningBook book = OpeningBook.getDefault();
+    private Tablebase tablebase = Tablebase.getDefault();
+    private int threads;
 
     /**
      * Create a minimaxing AI player with the given color and difficulty.
@@ -44,8 +88,34 @@ public class MiniMaxAIPlayer implements IAiPlayer {
      * @param diff The difficulty setting of the AI
      */
     public MiniMaxAIPlayer(AiDifficulty diff) {
+        this(diff, TranspositionTable.DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * Create a minimaxing AI player with the given difficulty and
+     * transposition table size.
+     *
+     * @param diff The difficulty setting of the AI
+     * @param tableMegabytes The size of the transposition table in megabytes
+     */
+    public MiniMaxAIPlayer(AiDifficulty diff, int tableMegabytes) {
+        this(diff, tableMegabytes, new EngineExecutor());
+    }
+
+    /**
+     * Create a minimaxing AI player with the given difficulty, transposition
+     * table size and executor.
+     *
+     * @param diff The difficulty setting of the AI
+     * @param tableMegabytes The size of the transposition table in megabytes
+     * @param executor The executor to run the search threads on; its
+     * parallelism bounds the number of search threads
+     */
+    public MiniMaxAIPlayer(AiDifficulty diff, int tableMegabytes, EngineExecutor executor) {
         this.SetDifficulty(diff);
-        rand = new Random(); // add a certain random element to avoid AI vs. AI repetition
+        table = new TranspositionTable(tableMegabytes);
+        this.executor = executor;
+        threads = executor.getParallelism();
     }
 
     /**
@@ -62,8 +132,19 @@ public class MiniMaxAIPlayer implements IAiPlayer {
      */
     @Override
     public Move GetMove(AbstractGame game) {
+        return GetMove(game, new StopFlag());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The flag is checked along with the search budget, so the search stops
+     * soon after it is raised.
+     */
+    @Override
+    public Move GetMove(AbstractGame game, StopFlag stop) {
         if (game.getBoard().checkMate(game.nextPlayerColor())) return null;
-        return MiniMaxMove(diff, game);
+        return MiniMaxMove(budget, game, stop);
     }
 
     /**
@@ -75,146 +156,816 @@ public class MiniMaxAIPlayer implements IAiPlayer {
     @Override
     public void SetDifficulty(AiDifficulty diff) {
         switch (diff) {
-            case Easy: this.diff = EASY_DEPTH; chanceOfMistake = 0.2; break;
-            case Medium: this.diff = MED_DEPTH; chanceOfMistake = 0.1; break;
-            case Hard: this.diff = HARD_DEPTH; break;
-            case ShortSighted: this.diff = SHORTSIGHTED_DEPTH; break;
+            case Easy: budget = EASY_BUDGET; chanceOfMistake = 0.2; break;
+            case Medium: budget = MED_BUDGET; chanceOfMistake = 0.1; break;
+            case Hard: budget = HARD_BUDGET; chanceOfMistake = 0.0; break;
+            case ShortSighted: budget = SHORTSIGHTED_BUDGET; chanceOfMistake = 0.0; break;
             default: throw new IllegalArgumentException("Invalid enum.");
         }
+        // forward pruning lets the stronger AIs look further ahead
+        nullMovePruning = diff == AiDifficulty.Medium || diff == AiDifficulty.Hard;
+        lateMoveReductions = diff == AiDifficulty.Hard;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchBudget GetBudget() {
+        return budget;
+    }
+
+    /**
+     * Change the search budget, keeping the rest of the difficulty setting.
+     *
+     * @param budget The new search budget
+     */
+    public void SetBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EngineExecutor GetExecutor() {
+        return executor;
+    }
+
+    /**
+     * Change the number of threads searching for a move.
+     *
+     * The calling thread is one of them, and the others run on the executor.
+     * No more threads than the parallelism of the executor are used, so that
+     * a search started on the executor itself can always run all of them.
+     *
+     * @param threads The number of threads, by default the parallelism of
+     * the executor
+     *
+     * @throws IllegalArgumentException if the number is less than 1
+     */
+    public void SetThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("At least one search thread is needed");
+        this.threads = threads;
+    }
+
+    /**
+     * Get the principal variation of the last search: the best move and the
+     * moves the AI expects to follow it, if both players play their best.
+     *
+     * @return The expected line of play, starting with the move returned by
+     * the last GetMove, or an empty list before the first search
+     */
+    public List<Move> GetPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchReport GetSearchReport() {
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The listener is told about every iteration of the main search thread.
+     */
+    @Override
+    public void SetSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Forget the results of earlier searches, kept in the transposition
+     * table, so that the next search starts as if it were the first.
+     */
+    public void NewGame() {
+        table.clear();
+    }
+
+    /**
+     * Make the random choices of the AI repeatable.
+     *
+     * The AI picks its book moves at random, adds a little random noise to
+     * the score of every root move to avoid AI vs. AI repetition, and the
+     * easier difficulties overlook root moves at random. With a seed, all of
+     * them come from it, so that a search with one thread and a depth or
+     * node budget plays the same moves every run.
+     *
+     * @param seed The seed of the random choices from now on
+     */
+    public void SetSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Set the opening book to play from while the game is in it.
+     *
+     * @param book The book, or null to always search
+     */
+    public void SetOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Set the endgame tablebases to look positions up in.
+     *
+     * @param tablebase The tablebases, or null to always search
+     */
+    public void SetTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Turn null-move pruning on or off, overriding the difficulty setting.
+     *
+     * @param enabled Whether to use null-move pruning
+     */
+    public void SetNullMovePruning(boolean enabled) {
+        nullMovePruning = enabled;
+    }
+
+    /**
+     * Turn late move reductions on or off, overriding the difficulty setting.
+     *
+     * @param enabled Whether to use late move reductions
+     */
+    public void SetLateMoveReductions(boolean enabled) {
+        lateMoveReductions = enabled;
+    }
+
+    /**
+     * Change how many captures deep the quiescence search may look past the
+     * end of the regular search.
+     *
+     * @param depth The maximum quiescence depth in plies; 0 evaluates the
+     * positions at the end of the search as they are
+     *
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public void SetQuiescenceDepth(int depth) {
+        if (depth < 0) throw new IllegalArgumentException("Quiescence depth must not be negative");
+        quiescenceDepth = depth;
     }
     
     /**
-     * Perform the best possible move you can make, assuming the game ends after
-     * depth number of moves.
+     * Find the best move within a search budget.
+     *
+     * A position in the opening book is not searched: one of its book moves
+     * is played right away. Neither is a won or lost endgame in the
+     * tablebases, where the fastest mate or the longest defence is played.
      *
-     * Modifies the board state by making the move it deems the "best move".
+     * The position is searched one ply deeper at a time until the budget runs
+     * out, and the best move of the deepest completed search is played. Each
+     * search also fills the transposition table with the best moves to try
+     * first in the next one. Another iteration is not started if it would
+     * likely not finish in the remaining time.
+     *
+     * Since the score rarely changes much from one iteration to the next,
+     * each iteration first searches a narrow window around the previous score
+     * (an aspiration window), which prunes more. If the score falls outside
+     * it, the window is widened and the iteration searched again.
+     *
+     * The search runs on several threads at once (Lazy SMP). Every thread
+     * searches the whole tree from the root with full alpha-beta bounds, on
+     * its own copy of the game, and they cooperate only through the shared
+     * transposition table: a thread finding a result saves the others from
+     * searching that position again. Half of the helper threads search one
+     * ply deeper than the main thread, so that the threads spread out over
+     * the tree instead of all searching the same positions in step. The main
+     * thread decides when to stop, and the move of the thread which completed
+     * the deepest search is played.
+     *
+     * All randomness is applied once at the root, before the search: the
+     * easier difficulties overlook some of the root moves, and every root
+     * move gets a little random noise added to its score. The search below
+     * the root is deterministic, so the transposition table, which is kept
+     * between moves and difficulties, only holds honest results.
      * 
-     * @param depth The number of moves to look ahead
+     * @param budget The limits of the search
+     * @param stop The flag telling the search to stop early
      * @return The suggested best move.
      */
-    private Move MiniMaxMove(int depth, AbstractGame game) {
-        assert(depth >= 1);
-        List<IChessPiece> pieces = game.getBoard().getAllPieces();
+    private Move MiniMaxMove(SearchBudget budget, AbstractGame game, StopFlag stop) {
+        SearchLimits limits = new SearchLimits(budget, stop);
+        report = limits.report(0);
 
-        boolean easy = depth == EASY_DEPTH;
-        boolean med = depth == MED_DEPTH;
-
-        // Increase search depth when few pieces remain, unless set to easy.
-        if (!easy) {
-            if (pieces.size() < 15) depth++;
-            if (pieces.size() < 10) depth++;
+        // Get all possible first moves for the AI.
+        long blocked = game.blockedSquares();
+        MoveList moves = new MoveList();
+        new MoveGenerator().generate(game.getBoard(), game.nextPlayerColor(), blocked, moves);
+        if (moves.isEmpty()) return null;
 
-            // Don't become unstoppable late-game unless set to hard.
-            if (!med) {
-                if (pieces.size() < 7) depth++;
-                if (pieces.size() < 5) depth += 3;
+        // The book is for chess without blocked squares.
+        if (book != null && blocked == 0) {
+            int bookMove = book.pick(game.getBoard(), moves, random);
+            if (bookMove != PackedMove.NONE) {
+                Move move = PackedMove.toMove(bookMove, game.getBoard());
+                principalVariation = Collections.singletonList(move);
+                report = limits.report(0);
+                return move;
+            }
+        }
+        if (tablebase != null && blocked == 0) {
+            int tableMove = tablebase.bestMove(game.getBoard().copy(), moves);
+            if (tableMove != PackedMove.NONE) {
+                Move move = PackedMove.toMove(tableMove, game.getBoard());
+                principalVariation = Collections.singletonList(move);
+                report = limits.report(0);
+                return move;
             }
         }
-        int finalDepth = depth; // Stupid Java lambda thing
 
-        // Get all possible first moves for the AI.
-        List<Move> moves = game.getPossibleMoves();
+        int[] rootMoves = overlookMoves(moves);
+        int[] rootNoise = new int[rootMoves.length];
+        for (int i = 0; i < rootNoise.length; i++) {
+            rootNoise[i] = random.nextInt(2 * ROOT_NOISE + 1) - ROOT_NOISE;
+        }
 
-        // Parallel processing. Do all moves, keep the one with the highest score.
-        List<result> movess = moves.parallelStream().map(move -> {
-            // Make a copy of the board so the threads don't share state.
-            AbstractGame gameCopy = game.copy();
+        // the results of earlier moves may give way to those of this one
+        table.newSearch();
+        Worker[] workers = new Worker[Math.min(threads, executor.getParallelism())];
+        for (int i = 0; i < workers.length; i++) workers[i] = new Worker(game, blocked, limits, rootMoves, rootNoise);
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            int skew = i & 1; // Stupid Java lambda thing
+            helpers.add(executor.submit(() -> helper.iterate(budget, skew, false)));
+        }
 
-            // Perform the move, then recursively check possible outcomes.
-            gameCopy.performMove(move);
+        try {
+            workers[0].iterate(budget, 0, true);
+        }
+        finally {
+            limits.stopped = true; // stop the helpers
+            for (Future<?> helper : helpers) await(helper);
+        }
 
-            int score;
-            if (gameCopy.getBoard().checkMate(game.nextPlayerColor().opponentColor()))
-                score = Integer.MAX_VALUE;
-            else
-                score = MiniMaxScore(finalDepth - 1, gameCopy, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Worker best = workers[0];
+        for (Worker worker : workers) {
+            if (worker.completedDepth > best.completedDepth) best = worker;
+        }
+        report = limits.report(best.completedDepth);
+        // without a completed search, any legal move will do
+        if (best.completedDepth == 0) {
+            principalVariation = Collections.emptyList();
+            return PackedMove.toMove(rootMoves[0], game.getBoard());
+        }
+        principalVariation = best.principalVariation();
+        return principalVariation.get(0);
+    }
 
-            // Undo the move to keep it valid
-            gameCopy.undoMove();
-            return new result(move, score);
-        }).collect(Collectors.toList());
-        Optional<result> optionalMove = movess.stream().max(Comparator.comparing(result -> result.score));
+    /**
+     * Helper method: drop each root move with the chance of a mistake, as if
+     * the AI overlooked it, but keep at least one.
+     */
+    private int[] overlookMoves(MoveList moves) {
+        int[] kept = new int[moves.size()];
+        int count = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (chanceOfMistake > 0 && random.nextDouble() < chanceOfMistake) continue;
+            kept[count++] = moves.get(i);
+        }
+        if (count == 0) kept[count++] = moves.get(random.nextInt(moves.size()));
+        return Arrays.copyOf(kept, count);
+    }
 
-        return optionalMove.map(result -> result.move).orElse(null);
+    /**
+     * Helper method: wait for a helper thread to finish its search.
+     */
+    private static void await(Future<?> helper) {
+        try {
+            helper.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
     }
 
     /**
-     * Recursively determine the score a given move will give by alternatingly
-     * running minimizing and maximizing for a given number of moves, until
-     * there are no moves left to make.
-     *
-     * This method uses alpha-beta pruning.
-     *
-     * @param depth The remaining depth to consider
-     * @param isMaximizing Whether the player should maximize or minimize at
-     * this point
-     * @param alpha The current alpha value
-     * @param beta The current beta value
+     * The statistics of a search, counted by one thread or added up for all.
+     */
+    private static class SearchCounters {
+        long nodes;
+        long quiescenceNodes;
+        long cutoffs;
+        long firstMoveCutoffs;
+        long tableProbes;
+        long tableHits;
+        int selectiveDepth;
+
+        void addTo(SearchCounters totals) {
+            totals.nodes += nodes;
+            totals.quiescenceNodes += quiescenceNodes;
+            totals.cutoffs += cutoffs;
+            totals.firstMoveCutoffs += firstMoveCutoffs;
+            totals.tableProbes += tableProbes;
+            totals.tableHits += tableHits;
+            totals.selectiveDepth = Math.max(totals.selectiveDepth, selectiveDepth);
+        }
+
+        void clear() {
+            nodes = quiescenceNodes = cutoffs = firstMoveCutoffs = tableProbes = tableHits = 0;
+            selectiveDepth = 0;
+        }
+    }
+
+    /**
+     * The limits of one search, shared by its threads.
      *
-     * @return The score the board will result in assuming both players play
-     * optimally for depth number of moves
+     * The threads count their nodes and statistics themselves, and only now
+     * and then add them to the shared totals and check the clock and the stop
+     * flag, to keep the overhead low. Once a limit is reached, the search is
+     * stopped, and all threads return as soon as they see it.
      */
-    private int MiniMaxScore(int depth, AbstractGame game, boolean isMaximizing, int alpha, int beta) {
-        Color maximizerColor = isMaximizing ? game.nextPlayerColor()
-                                            : game.nextPlayerColor().opponentColor();
-        
-        if (depth <= 0) return game.evaluateScore(maximizerColor);
+    private static class SearchLimits {
+        static final int CHECK_INTERVAL = 1024; // nodes between checks
+
+        final long start = System.nanoTime();
+        final long deadline;
+        final long maxNodes;
+        final StopFlag stop;
+        final SearchCounters totals = new SearchCounters();
+        volatile boolean stopped = false;
+
+        SearchLimits(SearchBudget budget, StopFlag stop) {
+            long millis = Math.min(budget.getTimeMillis(), Long.MAX_VALUE / 2000000);
+            deadline = start + millis * 1000000;
+            maxNodes = budget.getMaxNodes();
+            this.stop = stop;
+        }
+
+        /**
+         * Add the counts of a thread since its last check to the totals, and
+         * stop the search if it is out of nodes or time, or told to stop.
+         */
+        void check(SearchCounters counters) {
+            if (publish(counters) >= maxNodes || System.nanoTime() - deadline >= 0 || stop.isStopped()) {
+                stopped = true;
+            }
+        }
+
+        /**
+         * Add the counts of a thread since its last check to the totals.
+         *
+         * @return The total number of nodes
+         */
+        long publish(SearchCounters counters) {
+            synchronized (totals) {
+                counters.addTo(totals);
+                counters.clear();
+                return totals.nodes;
+            }
+        }
+
+        /**
+         * Report the totals so far.
+         *
+         * @param depth The depth of the deepest completed iteration
+         */
+        SearchReport report(int depth) {
+            synchronized (totals) {
+                return new SearchReport(depth, totals.selectiveDepth, totals.nodes, totals.quiescenceNodes,
+                    totals.cutoffs, totals.firstMoveCutoffs, totals.tableProbes, totals.tableHits, elapsedMillis());
+            }
+        }
 
+        long elapsedMillis() {
+            return (System.nanoTime() - start) / 1000000;
+        }
+    }
 
-        List<Move> moves = game.getPossibleMoves();
+    /**
+     * The search state of one thread: a copy of the game to make moves on, a
+     * move generator, a move list for every ply, the move ordering, the
+     * principal variation, and the result of its deepest completed search.
+     */
+    private class Worker {
+        final AbstractGame game;
+        final Board board;
+        final long blocked;
+        final long blockedKey;
+        final MoveGenerator generator = new MoveGenerator();
+        final MoveList[] moveLists = new MoveList[MAX_PLY];
+        final MoveOrderer orderer = new MoveOrderer(MAX_PLY);
+        final SearchLimits limits;
+        final int[] rootMoves;
+        final int[] rootNoise; // added to the score of the root move at the same index
+        // the best line found from each ply, pv[ply][0..pvLength[ply])
+        final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+        final int[] pvLength = new int[MAX_PLY + 1];
+        final SearchCounters counters = new SearchCounters(); // since the last check of the limits
+        int completedDepth = 0;
+        int[] completedPv = new int[0];
 
-        if (moves.size() == 0) return game.evaluateScore(maximizerColor);
+        Worker(AbstractGame game, long blocked, SearchLimits limits, int[] rootMoves, int[] rootNoise) {
+            this.game = game.copy();
+            this.limits = limits;
+            this.rootMoves = rootMoves.clone();
+            this.rootNoise = rootNoise.clone();
+            this.board = this.game.getBoard();
+            this.blocked = blocked;
+            // positions with different squares blocked have different moves
+            this.blockedKey = blocked * 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < moveLists.length; i++) moveLists[i] = new MoveList();
+        }
 
-        // NOTE: code duplication; consider refactoring
-        if (isMaximizing) {
-            for (Move move : moves) {
-                // Make a mistake if difficulty is set to do so.
-                if (rand.nextDouble() < chanceOfMistake) continue;
+        /**
+         * Search the root position one ply deeper at a time, until the search
+         * is stopped or the depth limit is reached.
+         *
+         * @param budget The limits of the search
+         * @param skew The number of plies to search deeper than the main
+         * thread
+         * @param main Whether this is the main thread, which decides when the
+         * search is done
+         */
+        void iterate(SearchBudget budget, int skew, boolean main) {
+            int score = 0;
+            for (int d = 1; d + skew <= budget.getMaxDepth(); d++) {
+                int depth = d + skew;
+                int alpha = -INF;
+                int beta = INF;
+                int window = ASPIRATION_WINDOW;
+                if (depth >= ASPIRATION_MIN_DEPTH && Math.abs(score) < MATE_BOUND) {
+                    alpha = score - window;
+                    beta = score + window;
+                }
+                while (true) {
+                    score = searchRoot(depth, alpha, beta);
+                    if (limits.stopped) break;
+                    if (score <= alpha) alpha = Math.max(score - window, -INF);
+                    else if (score >= beta) beta = Math.min(score + window, INF);
+                    else break;
+                    window *= 2;
+                    // a search made unstable by the table may fail again and
+                    // again; the full window always ends it
+                    if (window > MATE_BOUND) {
+                        alpha = -INF;
+                        beta = INF;
+                    }
+                }
+                // An unfinished iteration may have missed the best move.
+                if (limits.stopped) break;
+                completedDepth = depth;
+                completedPv = Arrays.copyOf(pv[0], pvLength[0]);
 
-                game.performMove(move);
-                // Check if the move puts the opponent in checkmate.
-                if (game.getBoard().checkMate(maximizerColor.opponentColor())) {
-                    game.undoMove();
-                    return 100000 * depth;
+                if (!main) continue;
+                SearchListener listener = MiniMaxAIPlayer.this.listener;
+                if (listener != null) {
+                    limits.publish(counters);
+                    listener.iterationCompleted(limits.report(depth));
                 }
-                int score = MiniMaxScore(depth - 1, game, false, alpha, beta);
-                game.undoMove();
+                // The next iteration takes longer than all before it together.
+                if (limits.elapsedMillis() * 2 > budget.getTimeMillis()) break;
+                if (score > MATE_BOUND) break;
+            }
+            limits.publish(counters); // the counts since the last check, for the report
+        }
 
-                // Alpha-beta pruning - early return for optimization
+        /**
+         * Search every root move to a given depth within a window, and move
+         * the best one to the front of the root moves, to be searched first
+         * next time.
+         *
+         * Like every other node, the root is searched as a principal
+         * variation search: the first move with the full window, and the
+         * others with a null window, only proving that they are no better.
+         * The random noise of each move is added to its score, so its window
+         * is shifted by the opposite amount; a move found to mate, or to be
+         * mated, is searched again without it, so that the fastest mate is
+         * always played.
+         *
+         * @param depth The depth to search to
+         * @param alpha The lower bound of the window
+         * @param beta The upper bound of the window
+         * @return The score of the best move; at most alpha if no move
+         * reached the window, and at least beta if one went past it; or 0 if
+         * the search was stopped
+         */
+        int searchRoot(int depth, int alpha, int beta) {
+            int best = -INF;
+            for (int i = 0; i < rootMoves.length; i++) {
+                int move = rootMoves[i];
+                int noise = rootNoise[i];
+                board.makeMove(move);
+                int score = searchRootMove(i == 0, depth, alpha, beta, noise);
+                // the noise must not make a slower mate look faster
+                if (noise != 0 && Math.abs(score - noise) > MATE_BOUND) {
+                    score = searchRootMove(i == 0, depth, alpha, beta, 0);
+                }
+                board.unmakeMove();
+                if (limits.stopped) return 0;
+
+                if (score > best) {
+                    best = score;
+                    // keep the order of the others, which were no better
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    System.arraycopy(rootNoise, 0, rootNoise, 1, i);
+                    rootMoves[0] = move;
+                    rootNoise[0] = noise;
+                    updatePv(0, move);
+                }
+                if (score > alpha) alpha = score;
+                if (score >= beta) break;
+            }
+            return best;
+        }
+
+        /**
+         * Helper method: search the root move just made, the first with the
+         * full window and the others with a null window first, with the noise
+         * added to its score.
+         */
+        private int searchRootMove(boolean first, int depth, int alpha, int beta, int noise) {
+            if (first) return noise - search(depth - 1, noise - beta, noise - alpha, 1, true);
+            int score = noise - search(depth - 1, noise - alpha - 1, noise - alpha, 1, true);
+            if (score > alpha && score < beta) score = noise - search(depth - 1, noise - beta, noise - alpha, 1, true);
+            return score;
+        }
+
+        /**
+         * Get the principal variation of the deepest completed search.
+         *
+         * @return The moves, starting from the root position
+         */
+        List<Move> principalVariation() {
+            List<Move> line = new ArrayList<>(completedPv.length);
+            for (int move : completedPv) {
+                line.add(PackedMove.toMove(move, board));
+                board.makeMove(move);
+            }
+            for (int i = 0; i < completedPv.length; i++) board.unmakeMove();
+            return line;
+        }
+
+        /**
+         * Helper method: make a move, followed by the principal variation of
+         * the next ply, the principal variation of a ply.
+         */
+        private void updatePv(int ply, int move) {
+            pv[ply][0] = move;
+            System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+            pvLength[ply] = pvLength[ply + 1] + 1;
+        }
+
+        /**
+         * Recursively determine the score of the position for the player to
+         * move, assuming both players play optimally for depth number of
+         * moves.
+         *
+         * This is minimaxing written as negamax: the score for one player is
+         * the negated score for the other, so both players maximize. It uses
+         * alpha-beta pruning, and the transposition table to avoid searching
+         * positions again.
+         *
+         * The moves are searched as a principal variation search: the first
+         * move, which is most likely the best, gets the full window, and the
+         * others a null window around alpha, which only tells whether they
+         * are better and prunes much more. Only a move proving better is
+         * searched again with the full window. The best line found is kept
+         * in the principal variation of the ply.
+         *
+         * If enabled, two kinds of forward pruning cut down the tree further:
+         *  - null-move pruning: if the player to move is still above beta
+         *    after passing the turn and a shallower search, a real move
+         *    would be even better, so the position is not searched further.
+         *    Passing is skipped in check, and when the player has only pawns
+         *    left, since in such endings having to move may be a
+         *    disadvantage (zugzwang);
+         *  - late move reductions: quiet moves ordered late are unlikely to
+         *    be best, and are searched to a reduced depth with a null window
+         *    first. Only those scoring above alpha are searched again fully.
+         *
+         * @param depth The remaining depth to consider
+         * @param alpha The lowest score the player to move is already assured
+         * @param beta The highest score the opponent will allow
+         * @param ply The number of moves made since the root
+         * @param nullAllowed Whether the player may pass; not twice in a row
+         *
+         * @return The score of the position for the player to move, or 0 if
+         * the search was stopped
+         */
+        int search(int depth, int alpha, int beta, int ply, boolean nullAllowed) {
+            if (depth <= 0 || ply >= MAX_PLY) return quiesce(alpha, beta, ply, 0);
+
+            if (++counters.nodes == SearchLimits.CHECK_INTERVAL) limits.check(counters);
+            if (limits.stopped) return 0;
+            if (ply > counters.selectiveDepth) counters.selectiveDepth = ply;
+            pvLength[ply] = 0;
+
+            Color color = board.getSideToMove();
+            int us = BitBoard.colorIndex(color);
+            // A player without a king has lost.
+            if (board.getBitBoard().pieces(us, BitBoard.KING) == 0) return -MATE + ply;
+            if (tablebase != null && blocked == 0) {
+                int result = tablebase.probeWdl(board);
+                if (result != Tablebase.UNKNOWN) return Math.max(alpha, Math.min(beta, result * (TABLEBASE_WIN - ply)));
+            }
+
+            long key = board.hash() ^ blockedKey;
+            int hashMove = PackedMove.NONE;
+            long entry = table.probe(key);
+            counters.tableProbes++;
+            if (entry != 0) {
+                counters.tableHits++;
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    switch (TranspositionTable.bound(entry)) {
+                        case TranspositionTable.EXACT: return Math.max(alpha, Math.min(beta, score));
+                        case TranspositionTable.LOWER: if (score >= beta) return beta; break;
+                        case TranspositionTable.UPPER: if (score <= alpha) return alpha; break;
+                        default: break;
+                    }
+                }
+            }
+
+            boolean inCheck = MoveGenerator.inCheck(board, color);
+            if (nullMovePruning && nullAllowed && !inCheck && depth >= NULL_MOVE_MIN_DEPTH
+                    && Math.abs(beta) < MATE_BOUND && hasPieces(us)
+                    && game.evaluateScore(color) >= beta) {
+                int reduction = depth > 6 ? 3 : 2;
+                board.makeNullMove();
+                int score = -search(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+                board.unmakeMove();
+                if (limits.stopped) return 0;
                 if (score >= beta) return beta;
-                alpha = Math.max(alpha, score);
             }
+
+            MoveList moves = moveLists[ply];
+            moves.clear();
+            generator.generate(board, color, blocked, moves);
+            if (moves.isEmpty()) {
+                // checkmate, the sooner the worse; stalemate is just evaluated
+                if (inCheck) return -MATE + ply;
+                return game.evaluateScore(color);
+            }
+
+            orderer.score(board, moves, hashMove, ply);
+
+            int alphaOrig = alpha;
+            int bestMove = PackedMove.NONE;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = MoveOrderer.pick(moves, i);
+
+                board.makeMove(move);
+                int score;
+                if (i == 0) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+                else {
+                    int reduction = 0;
+                    if (lateMoveReductions && i >= LMR_FULL_DEPTH_MOVES && depth >= LMR_MIN_DEPTH && !inCheck
+                            && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move)
+                            && !orderer.isKiller(move, ply) && !MoveGenerator.inCheck(board, board.getSideToMove())) {
+                        reduction = i >= 2 * LMR_FULL_DEPTH_MOVES && depth >= 6 ? 2 : 1;
+                    }
+                    score = -search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                    // the move may be good after all; search it properly
+                    if (reduction > 0 && score > alpha) score = -search(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                    if (score > alpha && score < beta) score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+                board.unmakeMove();
+                if (limits.stopped) return 0; // the score is not reliable
+
+                // Alpha-beta pruning - early return for optimization
+                if (score >= beta) {
+                    counters.cutoffs++;
+                    if (i == 0) counters.firstMoveCutoffs++;
+                    orderer.cutoff(board, move, depth, ply);
+                    table.store(key, move, toTable(beta, ply), depth, TranspositionTable.LOWER);
+                    return beta;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                }
+            }
+            int bound = alpha > alphaOrig ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, toTable(alpha, ply), depth, bound);
             return alpha;
         }
-        else {
-            for (Move move : moves) {
-                // Make a mistake if difficulty is set to do so.
-                if (rand.nextDouble() < chanceOfMistake) continue;
 
-                game.performMove(move);
-                // Check if the move puts the opponent in checkmate.
-                if (game.getBoard().checkMate(maximizerColor)) {
-                    game.undoMove();
-                    return -100000 * depth;
+        /**
+         * Helper method: check whether a player has pieces other than pawns
+         * and kings.
+         */
+        private boolean hasPieces(int color) {
+            BitBoard bb = board.getBitBoard();
+            return (bb.occupancy(color) & ~bb.pieces(color, BitBoard.PAWN) & ~bb.pieces(color, BitBoard.KING)) != 0;
+        }
+
+        /**
+         * Determine the score of a position at the end of the search by
+         * playing out the captures until the position is quiet.
+         *
+         * The player to move may stand pat, accepting the static evaluation,
+         * instead of capturing, so only captures and promotions are searched.
+         * A capture is skipped when even winning the piece for free could not
+         * raise the score to alpha (delta pruning). A player in check has to
+         * get out of it, so all moves are searched then, and checkmate is
+         * found. After qdepth plies the position is evaluated as it is.
+         *
+         * @param alpha The lowest score the player to move is already assured
+         * @param beta The highest score the opponent will allow
+         * @param ply The number of moves made since the root
+         * @param qdepth The number of moves made since the regular search
+         *
+         * @return The score of the position for the player to move, or 0 if
+         * the search was stopped
+         */
+        int quiesce(int alpha, int beta, int ply, int qdepth) {
+            counters.quiescenceNodes++;
+            if (++counters.nodes == SearchLimits.CHECK_INTERVAL) limits.check(counters);
+            if (limits.stopped) return 0;
+            if (ply > counters.selectiveDepth) counters.selectiveDepth = ply;
+            pvLength[ply] = 0; // the captures are not part of it
+
+            Color color = board.getSideToMove();
+            int us = BitBoard.colorIndex(color);
+            // A player without a king has lost.
+            if (board.getBitBoard().pieces(us, BitBoard.KING) == 0) return -MATE + ply;
+            if (tablebase != null && blocked == 0) {
+                int result = tablebase.probeWdl(board);
+                if (result != Tablebase.UNKNOWN) return Math.max(alpha, Math.min(beta, result * (TABLEBASE_WIN - ply)));
+            }
+
+            int standPat = game.evaluateScore(color);
+            if (qdepth >= quiescenceDepth || ply >= MAX_PLY) return standPat;
+
+            boolean inCheck = MoveGenerator.inCheck(board, color);
+            if (!inCheck) {
+                if (standPat >= beta) return beta;
+                if (standPat > alpha) alpha = standPat;
+            }
+
+            MoveList moves = moveLists[ply];
+            moves.clear();
+            if (inCheck) generator.generate(board, color, blocked, moves);
+            else generator.generateCaptures(board, color, blocked, moves);
+            if (moves.isEmpty()) return inCheck ? -MATE + ply : alpha;
+
+            orderer.score(board, moves, PackedMove.NONE, ply);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = MoveOrderer.pick(moves, i);
+                if (!inCheck) {
+                    if (PackedMove.isPromotion(move)) {
+                        // underpromotions are hardly ever better
+                        if (PackedMove.promotionType(move) != BitBoard.QUEEN) continue;
+                    }
+                    else if (standPat + Evaluation.material(victim(move)) + DELTA_MARGIN <= alpha) {
+                        continue;
+                    }
                 }
-                int score = MiniMaxScore(depth - 1, game, true, alpha, beta);
-                game.undoMove();
 
-                // Alpha-beta pruning - early return for optimization
-                if (score <= alpha) return alpha;
-                beta = Math.min(beta, score);
+                board.makeMove(move);
+                int score = -quiesce(-beta, -alpha, ply + 1, qdepth + 1);
+                board.unmakeMove();
+                if (limits.stopped) return 0; // the score is not reliable
+
+                if (score >= beta) return beta;
+                if (score > alpha) alpha = score;
             }
-            return beta;
+            return alpha;
+        }
+
+        /**
+         * Helper method: get the type of the piece a capture takes.
+         */
+        private int victim(int move) {
+            if (PackedMove.flags(move) == PackedMove.EN_PASSANT) return BitBoard.PAWN;
+            return board.getAtSquare(PackedMove.to(move)).getPieceType();
         }
     }
-}
 
-// Helper class since Java doesn't have tuples.
-class result {
-    result(Move m, int s) {
-        move = m;
-        score = s;
+    /**
+     * Helper method: convert a score to be stored in the transposition table.
+     *
+     * Mate scores count the moves from the root. In the table they count from
+     * the stored position instead, since it may be reached at another ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    /**
+     * Helper method: convert a score from the transposition table to count
+     * mates from the root.
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
     }
-    final Move move;
-    final int score;
 }
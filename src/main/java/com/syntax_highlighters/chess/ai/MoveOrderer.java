@@ -0,0 +1,163 @@
+package com.syntax_highlighters.chess.ai;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * Orders moves so that alpha-beta search tries the likely best ones first.
+ *
+ * The sooner a search finds a good move, the more of the remaining moves it
+ * can prune. Moves are tried in this order:
+ *  - the hash move, the best move found by an earlier search of the position;
+ *  - captures and promotions, most valuable victim first, and for equal
+ *    victims least valuable attacker first (MVV-LVA);
+ *  - the killer moves of the ply, quiet moves which caused a cutoff in a
+ *    sibling position;
+ *  - the remaining quiet moves, by how often they caused cutoffs anywhere in
+ *    the search (the history heuristic).
+ *
+ * The moves are scored when generated, and picked best first as the search
+ * goes, so that a cutoff early on saves sorting the rest. An orderer keeps the
+ * killers and history of one search thread, and must not be shared between
+ * threads.
+ */
+public final class MoveOrderer {
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int HISTORY_MAX = 1 << 20; // history is halved above this
+
+    private final int[][] killers;
+    private final int[][][] history = new int[2][64][64];
+
+    /**
+     * Create an orderer for searches up to a given number of plies.
+     *
+     * @param maxPly The largest ply the search reaches
+     */
+    public MoveOrderer(int maxPly) {
+        killers = new int[maxPly + 1][2];
+    }
+
+    /**
+     * Score the moves of a position.
+     *
+     * @param board The board, in the position the moves are for
+     * @param moves The moves of the position
+     * @param hashMove The best move from the transposition table, or
+     * PackedMove.NONE
+     * @param ply The number of moves made since the root
+     */
+    public void score(Board board, MoveList moves, int hashMove, int ply) {
+        int color = BitBoard.colorIndex(board.getSideToMove());
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            }
+            else if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                score = CAPTURE_SCORE + mvvLva(board, move);
+            }
+            else if (move == plyKillers[0]) {
+                score = KILLER_SCORE + 1;
+            }
+            else if (move == plyKillers[1]) {
+                score = KILLER_SCORE;
+            }
+            else {
+                score = history[color][PackedMove.from(move)][PackedMove.to(move)];
+            }
+            moves.setScore(i, score);
+        }
+    }
+
+    /**
+     * Move the best scored of the remaining moves to a position in the list.
+     *
+     * @param moves The scored moves
+     * @param i The position to fill; the moves before it have been tried
+     * @return The move now at the position
+     */
+    public static int pick(MoveList moves, int i) {
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (moves.score(j) > moves.score(best)) best = j;
+        }
+        if (best != i) moves.swap(i, best);
+        return moves.get(i);
+    }
+
+    /**
+     * Check whether a move is one of the killer moves of a ply.
+     *
+     * @param move The move
+     * @param ply The number of moves made since the root
+     * @return true if the move caused a cutoff in a sibling position
+     */
+    public boolean isKiller(int move, int ply) {
+        return killers[ply][0] == move || killers[ply][1] == move;
+    }
+
+    /**
+     * Remember a move which caused a beta cutoff.
+     *
+     * Only quiet moves are remembered, since captures are ordered well
+     * already.
+     *
+     * @param board The board, in the position the move was made in
+     * @param move The move causing the cutoff
+     * @param depth The remaining depth of the search at the position
+     * @param ply The number of moves made since the root
+     */
+    public void cutoff(Board board, int move, int depth, int ply) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) return;
+
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int color = BitBoard.colorIndex(board.getSideToMove());
+        int[] fromHistory = history[color][PackedMove.from(move)];
+        fromHistory[PackedMove.to(move)] += depth * depth;
+        if (fromHistory[PackedMove.to(move)] > HISTORY_MAX) ageHistory();
+    }
+
+    /**
+     * Helper method: halve the history scores, so that recent cutoffs count
+     * more than old ones.
+     */
+    private void ageHistory() {
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method: score a capture or promotion by the value of the victim
+     * and the attacker.
+     */
+    private static int mvvLva(Board board, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int victim;
+        if (PackedMove.flags(move) == PackedMove.EN_PASSANT) victim = BitBoard.PAWN;
+        else if (PackedMove.isCapture(move)) victim = board.getAtSquare(to).getPieceType();
+        else victim = -1; // a quiet promotion
+        int attacker = board.getAtSquare(from).getPieceType();
+
+        int score = (victim + 1) * BitBoard.PIECE_TYPES - attacker;
+        // the piece promoted to counts as well
+        if (PackedMove.isPromotion(move)) score += PackedMove.promotionType(move) * BitBoard.PIECE_TYPES;
+        return score;
+    }
+}
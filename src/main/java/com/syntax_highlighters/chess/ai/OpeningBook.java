@@ -0,0 +1,225 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * A book of opening moves, looked up by the hash of the position.
+ *
+ * Searching the first moves of a game is wasted work: they are well known,
+ * and a search from the same position always finds the same move, so games
+ * between AIs all start alike. The book instead holds the moves played from
+ * each position of a set of opening lines, weighted by how often they are
+ * played, and a move is picked at random by weight.
+ *
+ * The book file has the layout of a Polyglot book: entries of 16 bytes, in
+ * big-endian order, sorted by key:
+ *  - 8 bytes: the key of the position
+ *  - 2 bytes: the move
+ *  - 2 bytes: the weight of the move
+ *  - 4 bytes: unused (the learning data of Polyglot)
+ *
+ * A move is encoded as in Polyglot: the square moved to in bits 0-5, the
+ * square moved from in bits 6-11 (squares numbered as in BitBoard), and the
+ * piece promoted to in bits 12-14 (1 knight to 4 queen). Castling is encoded
+ * as the king moving to the square of its rook. The key, however, is the
+ * Zobrist hash of Board, not the one of Polyglot.
+ *
+ * The file is memory-mapped and binary searched where it lies, so the book
+ * takes no heap, however large, and a lookup only touches the few pages it
+ * needs. A book can be shared between threads.
+ *
+ * @see BookBuilder
+ */
+public final class OpeningBook {
+    public static final int ENTRY_BYTES = 16;
+    public static final String DEFAULT_RESOURCE = "book/openings.bin";
+
+    private static final int MAX_MOVES = 64; // more moves from one position are ignored
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    /**
+     * Helper class: the default book, loaded when first needed.
+     */
+    private static final class Default {
+        static final OpeningBook BOOK = loadDefault();
+    }
+
+    /**
+     * Helper method: create a book of mapped entries.
+     */
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Open a book file.
+     *
+     * @param path The path of the book
+     * @return The book, mapped into memory
+     *
+     * @throws IOException if the file cannot be read, or is not a whole
+     * number of entries
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length / ENTRY_BYTES > Integer.MAX_VALUE)
+                throw new IOException("Not an opening book: " + path);
+            // the mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * Get the book shipped with the game.
+     *
+     * @return The default book, or null if it could not be loaded
+     */
+    public static OpeningBook getDefault() {
+        return Default.BOOK;
+    }
+
+    /**
+     * Get the number of entries in the book.
+     *
+     * @return The number of position and move pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pick a book move for a position.
+     *
+     * Of the book moves from the position which are legal, one is picked at
+     * random, with a chance proportional to its weight.
+     *
+     * @param board The position to find a move for
+     * @param legal The legal moves in the position
+     * @param rand The source of randomness
+     * @return One of the legal moves, or PackedMove.NONE if the position is
+     * not in the book
+     */
+    public int pick(Board board, MoveList legal, SplittableRandom rand) {
+        long key = board.hash();
+        int first = find(key);
+        int[] moves = new int[MAX_MOVES];
+        int[] weights = new int[MAX_MOVES];
+        int count = 0;
+        int total = 0;
+        for (int i = first; i < size && key(i) == key && count < MAX_MOVES; i++) {
+            int weight = weight(i);
+            if (weight == 0) continue;
+            int move = decode(move(i), legal);
+            if (move == PackedMove.NONE) continue; // not legal here, or a hash collision
+            moves[count] = move;
+            weights[count++] = weight;
+            total += weight;
+        }
+        if (count == 0) return PackedMove.NONE;
+
+        int r = rand.nextInt(total);
+        for (int i = 0; i < count; i++) {
+            r -= weights[i];
+            if (r < 0) return moves[i];
+        }
+        return moves[count - 1];
+    }
+
+    /**
+     * Encode a move as in a Polyglot book.
+     *
+     * @param move The packed move
+     * @return The book move
+     */
+    public static int encode(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        // the king moves onto the rook
+        if (flags == PackedMove.KING_CASTLE) to = from | 7;
+        else if (flags == PackedMove.QUEEN_CASTLE) to = from & ~7;
+        int promotion = PackedMove.isPromotion(move) ? PackedMove.promotionType(move) - BitBoard.KNIGHT + 1 : 0;
+        return to | (from << 6) | (promotion << 12);
+    }
+
+    /**
+     * Helper method: get the legal move with a book encoding, or
+     * PackedMove.NONE.
+     */
+    private static int decode(int bookMove, MoveList legal) {
+        for (int i = 0; i < legal.size(); i++) {
+            if (encode(legal.get(i)) == bookMove) return legal.get(i);
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Helper method: find the index of the first entry with a key at least
+     * the given one, comparing keys as unsigned numbers.
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(mid), key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long key(int i) {
+        return entries.getLong(i * ENTRY_BYTES);
+    }
+
+    private int move(int i) {
+        return entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weight(int i) {
+        return entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * Helper method: load the default book from the class path. A book
+     * inside a jar cannot be mapped, and is copied to a temporary file first.
+     */
+    private static OpeningBook loadDefault() {
+        URL url = OpeningBook.class.getClassLoader().getResource(DEFAULT_RESOURCE);
+        if (url == null) return null;
+        try {
+            if (url.getProtocol().equals("file")) return open(Paths.get(url.toURI()));
+
+            Path copy = Files.createTempFile("openings", ".bin");
+            copy.toFile().deleteOnExit();
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return open(copy);
+        }
+        catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.syntax_highlighters.chess.ai;
+
+/**
+ * Limits on how long an AI may search for a move.
+ *
+ * The search deepens one ply at a time and stops when any limit is reached,
+ * playing the best move of the deepest search it completed. The time limit
+ * bounds how long a move can take, whatever the position; the node limit
+ * bounds the work, independent of the speed of the machine.
+ */
+public final class SearchBudget {
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long timeMillis;
+    private final long maxNodes;
+
+    /**
+     * Create a search budget.
+     *
+     * @param maxDepth The deepest search to start, in plies
+     * @param timeMillis The time to search for, in milliseconds, or UNLIMITED
+     * @param maxNodes The number of positions to search, or UNLIMITED
+     *
+     * @throws IllegalArgumentException if any limit is less than 1
+     */
+    public SearchBudget(int maxDepth, long timeMillis, long maxNodes) {
+        if (maxDepth < 1 || timeMillis < 1 || maxNodes < 1)
+            throw new IllegalArgumentException("Search budget limits must be positive");
+        this.maxDepth = maxDepth;
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Get a copy of this budget with another depth limit.
+     *
+     * @param maxDepth The deepest search to start, in plies
+     * @return The new budget
+     */
+    public SearchBudget withMaxDepth(int maxDepth) {
+        return new SearchBudget(maxDepth, timeMillis, maxNodes);
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + maxDepth
+            + ", " + (timeMillis == UNLIMITED ? "unlimited" : timeMillis + " ms")
+            + ", " + (maxNodes == UNLIMITED ? "unlimited" : maxNodes) + " nodes";
+    }
+}
@@ -0,0 +1,14 @@
+package com.syntax_highlighters.chess.ai;
+
+/**
+ * Listener for the progress of an AI's search.
+ */
+public interface SearchListener {
+    /**
+     * Called after every completed iteration of the search, on the thread
+     * searching. It should return quickly, since the search waits for it.
+     *
+     * @param report The statistics of the search so far
+     */
+    void iterationCompleted(SearchReport report);
+}
@@ -0,0 +1,121 @@
+package com.syntax_highlighters.chess.ai;
+
+/**
+ * Statistics of the work an AI did searching for a move.
+ *
+ * The counts cover all search threads. A report is made after every
+ * completed iteration of the search, and one at the end of the search; a move
+ * played from the opening book or the tablebases has a report without any
+ * nodes.
+ */
+public final class SearchReport {
+    /** The report of no search at all. */
+    public static final SearchReport EMPTY = new SearchReport(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final int depth;
+    private final int selectiveDepth;
+    private final long nodes;
+    private final long quiescenceNodes;
+    private final long cutoffs;
+    private final long firstMoveCutoffs;
+    private final long tableProbes;
+    private final long tableHits;
+    private final long elapsedMillis;
+
+    /**
+     * Create a search report.
+     *
+     * @param depth The depth of the deepest completed iteration, in plies
+     * @param selectiveDepth The deepest ply reached, quiescence search
+     * included
+     * @param nodes The number of positions searched, quiescence search
+     * included
+     * @param quiescenceNodes The number of positions searched by the
+     * quiescence search
+     * @param cutoffs The number of positions where a move failed high
+     * @param firstMoveCutoffs The number of those where it was the first move
+     * searched
+     * @param tableProbes The number of transposition table lookups
+     * @param tableHits The number of those finding an entry
+     * @param elapsedMillis The time since the search started, in milliseconds
+     */
+    SearchReport(int depth, int selectiveDepth, long nodes, long quiescenceNodes, long cutoffs,
+            long firstMoveCutoffs, long tableProbes, long tableHits, long elapsedMillis) {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Get the search speed.
+     *
+     * @return The number of nodes searched per second
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(elapsedMillis, 1);
+    }
+
+    /**
+     * Get the effective branching factor: the number of moves a tree of the
+     * searched depth with the same number of nodes would have per position.
+     * The better the pruning, the lower it is.
+     *
+     * @return The depth-th root of the number of nodes, or 0 without a
+     * completed iteration
+     */
+    public double getBranchingFactor() {
+        return depth == 0 ? 0 : Math.pow(nodes, 1.0 / depth);
+    }
+
+    /**
+     * Get how often a cutoff came from the first move searched, which is a
+     * measure of how good the move ordering is.
+     *
+     * @return The share of cutoffs by the first move, between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Get how often a position was found in the transposition table.
+     *
+     * @return The share of lookups finding an entry, between 0 and 1
+     */
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d seldepth %d nodes %d qnodes %d nps %d ebf %.2f first cutoffs %.1f%% tt hits %.1f%% time %d ms",
+            depth, selectiveDepth, nodes, quiescenceNodes, getNodesPerSecond(), getBranchingFactor(),
+            getFirstMoveCutoffRate() * 100, getTableHitRate() * 100, elapsedMillis);
+    }
+}
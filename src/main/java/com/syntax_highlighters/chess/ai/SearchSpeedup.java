@@ -0,0 +1,70 @@
+package com.syntax_highlighters.chess.ai;
+
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Perft;
+
+/**
+ * Measures how much faster the parallel search gets with more threads.
+ *
+ * For every thread count from one up to the given maximum, doubling each
+ * time, the reference positions of Perft are searched to a fixed depth by a
+ * Hard AI with an empty transposition table, and the time to reach the depth
+ * is compared to that of one thread. Time to depth, rather than nodes per
+ * second, is what matters: extra threads also search extra nodes, and only
+ * help as far as they make the main thread finish sooner.
+ *
+ * Run the main method to print the report.
+ */
+public final class SearchSpeedup {
+    private static final int DEFAULT_DEPTH = 7;
+
+    private SearchSpeedup() {}
+
+    /**
+     * Print the time to depth of every reference position for an increasing
+     * number of threads.
+     *
+     * Usage: SearchSpeedup [depth [maxThreads]]. By default the search goes to
+     * depth 7 and up to the number of available processors.
+     *
+     * @param args The depth and the largest number of threads to measure
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        // warm up the JIT, so that it does not slow down the first run
+        run(depth, 1, false);
+
+        long baseline = run(depth, 1, true);
+        for (int threads = 2; threads <= maxThreads; threads = Math.min(threads * 2, maxThreads)) {
+            long millis = run(depth, threads, true);
+            System.out.printf("%d threads: %,d ms, speedup %.2f%n", threads, millis, (double) baseline / millis);
+            if (threads == maxThreads) break;
+        }
+    }
+
+    /**
+     * Helper method: search every reference position, and return the total
+     * time in milliseconds.
+     */
+    private static long run(int depth, int threads, boolean print) {
+        long total = 0;
+        for (Perft.Reference ref : Perft.Reference.values()) {
+            EngineExecutor executor = new EngineExecutor(threads, Thread.NORM_PRIORITY);
+            MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard, TranspositionTable.DEFAULT_MEGABYTES, executor);
+            ai.SetBudget(new SearchBudget(depth, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+            ai.SetThreads(threads);
+            ai.SetOpeningBook(null); // search the initial position too
+
+            long start = System.nanoTime();
+            ai.GetMove(ref.game());
+            long millis = (System.nanoTime() - start) / 1000000;
+            executor.shutdown();
+            total += millis;
+            if (print) System.out.printf("%-12s %2d threads depth %d: %,d ms (%s)%n", ref, threads, depth, millis, ai.GetSearchReport());
+        }
+        if (print && threads == 1) System.out.printf("1 thread: %,d ms%n", total);
+        return total;
+    }
+}
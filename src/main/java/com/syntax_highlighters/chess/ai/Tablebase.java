@@ -0,0 +1,388 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * Endgame tablebases: the perfect result of every position of an endgame.
+ *
+ * Endgames with few pieces are where a search does worst: the winning plan
+ * may take dozens of moves, far beyond any search depth, while every position
+ * on the way looks alike to the evaluation. The tablebases hold the result of
+ * every position of the endgames of a king and up to two pieces against a
+ * bare king (KQK, KRK, KPK, KBNK, and so on), computed beforehand by
+ * TablebaseGenerator.
+ *
+ * Every endgame has two files, named after its material, like KBNK.wdl and
+ * KBNK.dtm:
+ *  - the WDL file has one bit per position: whether the side with the pieces
+ *    wins, or it is a draw (the bare king never wins);
+ *  - the DTM file has one byte per position: the distance to mate in plies,
+ *    plus one, or 0 for a draw.
+ * The search only needs the small WDL files, and probes them in every node
+ * with few enough pieces; the DTM files are used at the root, to play the
+ * fastest mate or the longest defence.
+ *
+ * A position is indexed by the side to move, the square of the strong king,
+ * limited to files a to d by mirroring the board, the square of the bare
+ * king, and the squares of the other pieces in the order Q, R, B, N, P. The
+ * tables are stored with the strong side as white; a position where black
+ * has the pieces is looked up with the ranks flipped.
+ *
+ * The files are memory-mapped, so they take no heap, and are shared between
+ * all threads.
+ *
+ * @see TablebaseGenerator
+ */
+public final class Tablebase {
+    // results for the side to move
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    public static final int UNKNOWN = 2; // not in the tables
+
+    public static final int MAX_PIECES = 4;
+    public static final String DEFAULT_DIRECTORY = "tablebases";
+    public static final String WDL_SUFFIX = ".wdl";
+    public static final String DTM_SUFFIX = ".dtm";
+
+    // the types of the pieces besides the kings, in the order of the index
+    static final int[] ORDER = {BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT, BitBoard.PAWN};
+    private static final String LETTERS = "PNBRQK"; // by piece type
+    private static final int CODES = 6 * 6; // material codes of up to two pieces
+
+    // A located position is packed into a long: the index in bits 0-31, the
+    // material code in bits 32-39, and whether the strong side is to move in
+    // bit 40. Locating allocates nothing, since it is done in every node.
+    private static final long NOT_FOUND = -1;
+    private static final long INSUFFICIENT = -2;
+
+    private final ByteBuffer[] wdl = new ByteBuffer[CODES];
+    private final ByteBuffer[] dtm = new ByteBuffer[CODES];
+    private int maxPieces = 2;
+    private int tables = 0;
+
+    /**
+     * Helper class: the default tablebases, loaded when first needed.
+     */
+    private static final class Default {
+        static final Tablebase TABLES = loadDefault();
+    }
+
+    /**
+     * Open the tablebases in a directory.
+     *
+     * Every endgame with both its files in the directory is loaded, the
+     * others are left out.
+     *
+     * @param directory The directory of the table files
+     * @return The tablebases
+     *
+     * @throws IOException if a table file cannot be read, or has the wrong
+     * size
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        for (String material : allMaterials()) {
+            Path wdlPath = directory.resolve(material + WDL_SUFFIX);
+            Path dtmPath = directory.resolve(material + DTM_SUFFIX);
+            if (!Files.exists(wdlPath) || !Files.exists(dtmPath)) continue;
+
+            int[] types = parse(material);
+            int size = size(types.length);
+            int code = code(types, types.length);
+            tablebase.wdl[code] = map(wdlPath, (size + 7) / 8);
+            tablebase.dtm[code] = map(dtmPath, size);
+            tablebase.maxPieces = Math.max(tablebase.maxPieces, types.length + 2);
+            tablebase.tables++;
+        }
+        return tablebase;
+    }
+
+    /**
+     * Get the tablebases in the default directory.
+     *
+     * @return The default tablebases, or null if there are none
+     */
+    public static Tablebase getDefault() {
+        return Default.TABLES;
+    }
+
+    /**
+     * Get the number of endgames loaded.
+     *
+     * @return The number of tables
+     */
+    public int size() {
+        return tables;
+    }
+
+    /**
+     * Look up the result of a position.
+     *
+     * Positions with no pieces besides the kings, or only a bishop or a
+     * knight, are draws without a table.
+     *
+     * @param board The position, which must be legal
+     * @return WIN, DRAW or LOSS for the side to move, or UNKNOWN if the
+     * position is not in the tables
+     */
+    public int probeWdl(Board board) {
+        long position = locate(board);
+        if (position == NOT_FOUND) return UNKNOWN;
+        if (position == INSUFFICIENT) return DRAW;
+
+        int code = code(position);
+        int index = index(position);
+        boolean strongWins = (wdl[code].get(index >>> 3) & (1 << (index & 7))) != 0;
+        if (!strongWins) return DRAW;
+        return strongToMove(position) ? WIN : LOSS;
+    }
+
+    /**
+     * Look up the distance to mate of a position.
+     *
+     * @param board The position, which must be legal
+     * @return The number of plies to mate with perfect play, for either side,
+     * or -1 if the position is a draw or not in the tables
+     */
+    public int probeDtm(Board board) {
+        long position = locate(board);
+        if (position == NOT_FOUND || position == INSUFFICIENT) return -1;
+        return (dtm[code(position)].get(index(position)) & 0xFF) - 1;
+    }
+
+    /**
+     * Find the best move in a won or lost position: the fastest mate, or the
+     * longest way to be mated.
+     *
+     * @param board The position
+     * @param legal The legal moves in the position
+     * @return The best move, or PackedMove.NONE if the position is a draw or
+     * not in the tables, or a move leads out of them
+     */
+    public int bestMove(Board board, MoveList legal) {
+        int result = probeWdl(board);
+        if (result != WIN && result != LOSS) return PackedMove.NONE;
+
+        int best = PackedMove.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            board.makeMove(move);
+            int childResult = probeWdl(board);
+            int childDtm = probeDtm(board);
+            board.unmakeMove();
+            if (childResult == UNKNOWN) return PackedMove.NONE;
+
+            // from the view of the side to move: quick wins, then draws, then
+            // slow losses
+            int score = childResult == LOSS ? 1000 - childDtm : childResult == WIN ? -1000 + childDtm : 0;
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the name of the endgame of a list of piece types.
+     *
+     * @param types The types of the pieces besides the kings, in table order
+     * @param count The number of pieces
+     * @return The name of the endgame, like "KBNK"
+     */
+    static String name(int[] types, int count) {
+        StringBuilder name = new StringBuilder("K");
+        for (int i = 0; i < count; i++) name.append(LETTERS.charAt(types[i]));
+        return name.append('K').toString();
+    }
+
+    /**
+     * Get the piece types of an endgame.
+     *
+     * @param material The name of the endgame, like "KBNK"
+     * @return The types of the pieces besides the kings, in table order
+     *
+     * @throws IllegalArgumentException if the name is not an endgame of a
+     * king and up to two pieces against a king, with the pieces in table
+     * order
+     */
+    static int[] parse(String material) {
+        if (material.length() < 2 || material.length() > MAX_PIECES
+                || material.charAt(0) != 'K' || material.charAt(material.length() - 1) != 'K')
+            throw new IllegalArgumentException("Not an endgame: " + material);
+        int[] types = new int[material.length() - 2];
+        for (int i = 0; i < types.length; i++) {
+            int type = LETTERS.indexOf(material.charAt(i + 1));
+            if (type < 0 || type == BitBoard.KING || (i > 0 && order(type) < order(types[i - 1])))
+                throw new IllegalArgumentException("Not an endgame: " + material);
+            types[i] = type;
+        }
+        return types;
+    }
+
+    /**
+     * Get the number of positions in a table.
+     *
+     * @param count The number of pieces besides the kings
+     * @return The number of indices, for both sides to move
+     */
+    static int size(int count) {
+        int size = 2 * 32 * 64;
+        for (int i = 0; i < count; i++) size *= 64;
+        return size;
+    }
+
+    /**
+     * Get the index of a position with the strong side as white.
+     *
+     * @param strongToMove Whether the side with the pieces is to move
+     * @param whiteKing The square of the strong king
+     * @param blackKing The square of the bare king
+     * @param squares The squares of the other pieces, in table order
+     * @param count The number of other pieces
+     * @return The index of the position in its table
+     */
+    static int index(boolean strongToMove, int whiteKing, int blackKing, int[] squares, int count) {
+        int mirror = (whiteKing & 7) >= 4 ? 7 : 0;
+        int king = whiteKing ^ mirror;
+        int index = (strongToMove ? 0 : 32) + (king >> 3) * 4 + (king & 7);
+        index = index * 64 + (blackKing ^ mirror);
+        for (int i = 0; i < count; i++) index = index * 64 + (squares[i] ^ mirror);
+        return index;
+    }
+
+    /**
+     * Get the material code of a list of piece types, which indexes the
+     * tables.
+     */
+    static int code(int[] types, int count) {
+        int code = 0;
+        for (int i = 0; i < count; i++) code = code * 6 + types[i] + 1;
+        return code;
+    }
+
+    /**
+     * Helper method: get the position of a type in the table order.
+     */
+    private static int order(int type) {
+        for (int i = 0; i < ORDER.length; i++) {
+            if (ORDER[i] == type) return i;
+        }
+        return -1;
+    }
+
+    private static int index(long position) {
+        return (int) position;
+    }
+
+    private static int code(long position) {
+        return (int) (position >>> 32) & 0xFF;
+    }
+
+    private static boolean strongToMove(long position) {
+        return (position >>> 40 & 1) != 0;
+    }
+
+    /**
+     * Helper method: find the table and index of a position.
+     */
+    private long locate(Board board) {
+        BitBoard bits = board.getBitBoard();
+        if (Long.bitCount(bits.occupied()) > maxPieces) return NOT_FOUND;
+
+        int strong;
+        if (bits.occupancy(BitBoard.BLACK) == bits.pieces(BitBoard.BLACK, BitBoard.KING)) strong = BitBoard.WHITE;
+        else if (bits.occupancy(BitBoard.WHITE) == bits.pieces(BitBoard.WHITE, BitBoard.KING)) strong = BitBoard.BLACK;
+        else return NOT_FOUND;
+        long strongKing = bits.pieces(strong, BitBoard.KING);
+        long weakKing = bits.pieces(strong ^ 1, BitBoard.KING);
+        if (strongKing == 0 || weakKing == 0) return NOT_FOUND;
+
+        long others = bits.occupancy(strong) & ~strongKing;
+        long minors = bits.pieces(strong, BitBoard.BISHOP) | bits.pieces(strong, BitBoard.KNIGHT);
+        if (others == 0 || (Long.bitCount(others) == 1 && (others & minors) != 0)) return INSUFFICIENT;
+        // the tables assume that nobody can castle
+        if (board.getCastlingRights() != 0) return NOT_FOUND;
+
+        // flip the ranks if black has the pieces, and the files if the king
+        // is on the king side
+        int flip = strong == BitBoard.WHITE ? 0 : 56;
+        int king = Long.numberOfTrailingZeros(strongKing) ^ flip;
+        if ((king & 7) >= 4) {
+            flip ^= 7;
+            king ^= 7;
+        }
+
+        // as in index, without an array of the squares
+        boolean strongToMove = BitBoard.colorIndex(board.getSideToMove()) == strong;
+        int index = (strongToMove ? 0 : 32) + (king >> 3) * 4 + (king & 7);
+        index = index * 64 + (Long.numberOfTrailingZeros(weakKing) ^ flip);
+        int code = 0;
+        for (int type : ORDER) {
+            for (long pieces = bits.pieces(strong, type); pieces != 0; pieces &= pieces - 1) {
+                index = index * 64 + (Long.numberOfTrailingZeros(pieces) ^ flip);
+                code = code * 6 + type + 1;
+            }
+        }
+        if (wdl[code] == null) return NOT_FOUND;
+        return index | (long) code << 32 | (strongToMove ? 1L << 40 : 0);
+    }
+
+    /**
+     * Helper method: map a table file, checking its size.
+     */
+    private static ByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != size) throw new IOException("Wrong size of table " + path);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Helper method: list the names of every endgame of a king and up to two
+     * pieces against a king.
+     */
+    static String[] allMaterials() {
+        String[] materials = new String[ORDER.length + ORDER.length * (ORDER.length + 1) / 2];
+        int n = 0;
+        int[] types = new int[2];
+        for (int i = 0; i < ORDER.length; i++) {
+            types[0] = ORDER[i];
+            materials[n++] = name(types, 1);
+            for (int j = i; j < ORDER.length; j++) {
+                types[1] = ORDER[j];
+                materials[n++] = name(types, 2);
+            }
+        }
+        return materials;
+    }
+
+    /**
+     * Helper method: load the tablebases of the default directory.
+     */
+    private static Tablebase loadDefault() {
+        Path directory = Paths.get(DEFAULT_DIRECTORY);
+        if (!Files.isDirectory(directory)) return null;
+        try {
+            Tablebase tablebase = open(directory);
+            return tablebase.size() > 0 ? tablebase : null;
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
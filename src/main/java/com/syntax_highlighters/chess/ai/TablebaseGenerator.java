@@ -0,0 +1,558 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+
+/**
+ * Generates endgame tablebases by retrograde analysis.
+ *
+ * Instead of searching forward from every position, the generator works
+ * backwards from the mates. A table holds one byte per position, the distance
+ * to mate in plies plus one, or 0 while the position is unresolved, and is
+ * filled one distance at a time:
+ *  - every position where the bare king is mated is lost in 0 plies;
+ *  - a position with the strong side to move is won in n + 1 plies if a move
+ *    leads to a position lost in n plies. Such positions are found by taking
+ *    moves back (un-moves) from the positions lost in n plies;
+ *  - a position with the bare king to move is lost in n + 1 plies once every
+ *    move leads to a won position, the slowest won in n plies. Such
+ *    positions are found among the un-moves of the positions won in n plies,
+ *    and checked by trying all their moves.
+ * Positions left unresolved when no more are found are draws.
+ *
+ * Moves leaving the table, captures of the strong side's pieces and
+ * promotions, are looked up in the smaller tables, which are generated
+ * first. Every distance is a pass over the table, split between the threads
+ * of an engine executor; a pass only writes positions of the other side to
+ * move than it reads, so the threads need no locks.
+ *
+ * Run the main method to write the tables into a directory.
+ *
+ * @see Tablebase
+ */
+public final class TablebaseGenerator {
+    private static final String[] DEFAULT_MATERIALS = {"KQK", "KRK", "KPK", "KBNK"};
+    private static final int CHUNK = 1 << 16; // positions per task
+    private static final int MAX_VALUE = 255;
+
+    private final EngineExecutor executor;
+    // the tables generated so far, by material
+    private final Map<String, byte[]> tables = new HashMap<>();
+
+    /**
+     * Create a generator.
+     *
+     * @param executor The executor to run the passes over the tables on
+     */
+    public TablebaseGenerator(EngineExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Generate tables and write them into a directory.
+     *
+     * Usage: TablebaseGenerator [directory [material...]], where a material
+     * is the name of an endgame like KBNK, or "all" for every endgame of up
+     * to four pieces. By default KQK, KRK, KPK and KBNK are written into the
+     * directory "tablebases". The smaller tables an endgame depends on are
+     * written as well.
+     *
+     * @param args The directory and the endgames to generate
+     *
+     * @throws IOException if a table cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : Tablebase.DEFAULT_DIRECTORY);
+        String[] materials = DEFAULT_MATERIALS;
+        if (args.length > 1) {
+            materials = args[1].equals("all") ? Tablebase.allMaterials()
+                : Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        EngineExecutor executor = new EngineExecutor(Runtime.getRuntime().availableProcessors(), Thread.NORM_PRIORITY);
+        TablebaseGenerator generator = new TablebaseGenerator(executor);
+        for (String material : materials) {
+            long start = System.nanoTime();
+            byte[] table = generator.generate(material);
+            System.out.printf("%-5s %,11d positions, longest mate %3d plies, %,7d ms%n",
+                material, table.length, longestMate(table), (System.nanoTime() - start) / 1000000);
+        }
+        Files.createDirectories(directory);
+        generator.writeAll(directory);
+        executor.shutdown();
+    }
+
+    /**
+     * Generate the table of an endgame, and the tables it depends on.
+     *
+     * @param material The name of the endgame, like "KBNK"
+     * @return The table: one byte per position, the distance to mate in plies
+     * plus one, or 0 for a draw or an illegal position
+     *
+     * @throws IllegalArgumentException if the name is not an endgame of a
+     * king and up to two pieces against a king
+     */
+    public byte[] generate(String material) {
+        byte[] table = tables.get(material);
+        if (table != null) return table;
+
+        int[] types = Tablebase.parse(material);
+        for (String child : children(types)) generate(child);
+        table = new Generation(types).run();
+        tables.put(material, table);
+        return table;
+    }
+
+    /**
+     * Write every table generated so far into a directory, as a WDL and a
+     * DTM file.
+     *
+     * @param directory The directory to write to
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public void writeAll(Path directory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : tables.entrySet()) {
+            byte[] table = entry.getValue();
+            Files.write(directory.resolve(entry.getKey() + Tablebase.DTM_SUFFIX), table);
+
+            byte[] wdl = new byte[(table.length + 7) / 8];
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != 0) wdl[i >>> 3] |= 1 << (i & 7);
+            }
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(directory.resolve(entry.getKey() + Tablebase.WDL_SUFFIX)))) {
+                out.write(wdl);
+            }
+        }
+    }
+
+    /**
+     * Get the longest distance to mate in a table.
+     *
+     * @param table A table returned by generate
+     * @return The most plies to mate of any won position
+     */
+    public static int longestMate(byte[] table) {
+        int longest = 0;
+        for (byte value : table) longest = Math.max(longest, (value & 0xFF) - 1);
+        return longest;
+    }
+
+    /**
+     * Helper method: get the tables reached by captures and promotions.
+     */
+    private static List<String> children(int[] types) {
+        List<String> children = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            int[] child = new int[types.length];
+            int n = 0;
+            for (int j = 0; j < types.length; j++) if (j != i) child[n++] = types[j];
+            if (!insufficient(child, n)) children.add(Tablebase.name(sort(child, null, n), n));
+            if (types[i] != BitBoard.PAWN) continue;
+
+            for (int promotion = BitBoard.KNIGHT; promotion <= BitBoard.QUEEN; promotion++) {
+                child = types.clone();
+                child[i] = promotion;
+                if (!insufficient(child, child.length)) children.add(Tablebase.name(sort(child, null, child.length), child.length));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Helper method: whether pieces besides the kings can never mate.
+     */
+    private static boolean insufficient(int[] types, int count) {
+        return count == 0 || (count == 1 && (types[0] == BitBoard.BISHOP || types[0] == BitBoard.KNIGHT));
+    }
+
+    /**
+     * Helper method: sort pieces into table order, along with their squares
+     * if given.
+     */
+    private static int[] sort(int[] types, int[] squares, int count) {
+        for (int i = 1; i < count; i++) {
+            for (int j = i; j > 0 && rank(types[j]) < rank(types[j - 1]); j--) {
+                int t = types[j]; types[j] = types[j - 1]; types[j - 1] = t;
+                if (squares == null) continue;
+                int s = squares[j]; squares[j] = squares[j - 1]; squares[j - 1] = s;
+            }
+        }
+        return types;
+    }
+
+    private static int rank(int type) {
+        for (int i = 0; i < Tablebase.ORDER.length; i++) {
+            if (Tablebase.ORDER[i] == type) return i;
+        }
+        throw new IllegalArgumentException("Invalid piece type: " + type);
+    }
+
+    /**
+     * The generation of one table.
+     */
+    private final class Generation {
+        final int[] types;
+        final int count;
+        final byte[] values;
+        final int half; // the first index with the bare king to move
+        // the highest value written ahead of the pass that will read it
+        final AtomicInteger pending = new AtomicInteger();
+
+        Generation(int[] types) {
+            this.types = types;
+            this.count = types.length;
+            this.values = new byte[Tablebase.size(count)];
+            this.half = values.length / 2;
+        }
+
+        /**
+         * Fill the table: first the mates and the moves out of the table,
+         * then one distance at a time until no position is resolved.
+         */
+        byte[] run() {
+            forEachChunk(0, values.length, (cursor, from, to) -> {
+                for (int i = from; i < to; i++) cursor.initialize(i);
+                return false;
+            });
+            for (int ply = 0; ply < MAX_VALUE - 1; ply++) {
+                int level = ply;
+                boolean strongToMove = (ply & 1) != 0; // wins take an odd number of plies
+                boolean found = forEachChunk(strongToMove ? 0 : half, strongToMove ? half : values.length,
+                    (cursor, from, to) -> {
+                        boolean any = false;
+                        for (int i = from; i < to; i++) {
+                            if ((values[i] & 0xFF) != level + 1) continue;
+                            any = true;
+                            cursor.decode(i);
+                            if (strongToMove) cursor.unmoveBareKing(level);
+                            else cursor.unmoveStrongSide(level);
+                        }
+                        return any;
+                    });
+                if (!found && ply >= pending.get()) break;
+            }
+            return values;
+        }
+
+        /**
+         * Helper method: run a task over a range of the table in chunks on
+         * the executor, and tell whether any chunk returned true.
+         */
+        private boolean forEachChunk(int start, int end, ChunkTask task) {
+            AtomicBoolean any = new AtomicBoolean();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = start; from < end; from += CHUNK) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(end, from + CHUNK);
+                futures.add(executor.submit(() -> {
+                    if (task.run(new Cursor(this), chunkFrom, chunkTo)) any.set(true);
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while generating " + Tablebase.name(types, count), e);
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to generate " + Tablebase.name(types, count), e.getCause());
+                }
+            }
+            return any.get();
+        }
+
+        /**
+         * Helper method: raise the highest pending value.
+         */
+        void pend(int ply) {
+            pending.accumulateAndGet(ply, Math::max);
+        }
+    }
+
+    /**
+     * A task over a range of a table.
+     */
+    private interface ChunkTask {
+        boolean run(Cursor cursor, int from, int to);
+    }
+
+    /**
+     * A position of a table being generated, decoded from its index, with
+     * the scratch space to look at its moves. Every thread has its own.
+     */
+    private final class Cursor {
+        final Generation gen;
+        final int[] types;
+        final int count;
+        final int[] squares;
+        final int[] childTypes;
+        final int[] childSquares;
+        boolean strongToMove;
+        int whiteKing;
+        int blackKing;
+        long occupied;
+
+        Cursor(Generation gen) {
+            this.gen = gen;
+            this.types = gen.types;
+            this.count = gen.count;
+            this.squares = new int[count];
+            this.childTypes = new int[count];
+            this.childSquares = new int[count];
+        }
+
+        /**
+         * Decode an index: six bits per piece square, from the last piece up
+         * to the bare king, then the strong king's square on files a to d,
+         * and the side to move.
+         */
+        void decode(int index) {
+            for (int i = count - 1; i >= 0; i--) {
+                squares[i] = index & 63;
+                index >>>= 6;
+            }
+            blackKing = index & 63;
+            index >>>= 6;
+            whiteKing = (index & 31) / 4 * 8 + (index & 3);
+            strongToMove = index < 32;
+            occupied = 1L << whiteKing | 1L << blackKing;
+            for (int i = 0; i < count; i++) occupied |= 1L << squares[i];
+        }
+
+        /**
+         * Set the value of a position whose result follows from itself or
+         * from the smaller tables: mates, stalemates, and moves out of the
+         * table.
+         */
+        void initialize(int index) {
+            decode(index);
+            if (!isLegal()) return;
+            if (strongToMove) initializePromotions(index);
+            else initializeBareKing(index);
+        }
+
+        private void initializePromotions(int index) {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int to = squares[i] + 8;
+                if (types[i] != BitBoard.PAWN || to < 56 || (occupied & 1L << to) != 0) continue;
+                for (int promotion = BitBoard.KNIGHT; promotion <= BitBoard.QUEEN; promotion++) {
+                    int value = external(false, whiteKing, blackKing, i, promotion, to);
+                    if (value != 0) best = Math.min(best, value); // lost in value - 1, won in value
+                }
+            }
+            if (best == Integer.MAX_VALUE) return;
+            gen.values[index] = (byte) (best + 1);
+            gen.pend(best);
+        }
+
+        private void initializeBareKing(int index) {
+            boolean hasMove = false;
+            boolean escapes = false;
+            boolean inTable = false;
+            int slowest = -1;
+            for (long targets = kingTargets(); targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int captured = pieceAt(to);
+                if (attacked(to, occupied & ~(1L << blackKing), captured)) continue;
+                hasMove = true;
+                if (captured < 0) {
+                    inTable = true;
+                    continue;
+                }
+                int value = external(true, whiteKing, to, captured, -1, 0);
+                if (value == 0) escapes = true;
+                else slowest = Math.max(slowest, value - 1);
+            }
+
+            if (!hasMove) {
+                // mated, or stalemated
+                if (attacked(blackKing, occupied, -1)) gen.values[index] = 1;
+            }
+            else if (!inTable && !escapes) {
+                // every move captures into a lost table
+                gen.values[index] = (byte) (slowest + 2);
+                gen.pend(slowest + 1);
+            }
+        }
+
+        /**
+         * Find the positions with the strong side to move which reach this
+         * position, lost in ply plies, and mark them as won in ply + 1.
+         */
+        void unmoveStrongSide(int ply) {
+            int value = ply + 2;
+            int king = whiteKing;
+            for (long from = Attacks.king(king) & ~occupied & ~Attacks.king(blackKing); from != 0; from &= from - 1) {
+                whiteKing = Long.numberOfTrailingZeros(from);
+                occupied ^= 1L << king | 1L << whiteKing;
+                markWin(value);
+                occupied ^= 1L << king | 1L << whiteKing;
+            }
+            whiteKing = king;
+
+            for (int i = 0; i < count; i++) {
+                int square = squares[i];
+                long from;
+                if (types[i] == BitBoard.PAWN) {
+                    from = 0;
+                    if (square >= 16 && (occupied & 1L << (square - 8)) == 0) {
+                        from |= 1L << (square - 8);
+                        if (square >> 3 == 3 && (occupied & 1L << (square - 16)) == 0) from |= 1L << (square - 16);
+                    }
+                }
+                else {
+                    from = Attacks.of(BitBoard.WHITE, types[i], square, occupied) & ~occupied;
+                }
+                for (; from != 0; from &= from - 1) {
+                    int f = Long.numberOfTrailingZeros(from);
+                    squares[i] = f;
+                    occupied ^= 1L << square | 1L << f;
+                    markWin(value);
+                    occupied ^= 1L << square | 1L << f;
+                }
+                squares[i] = square;
+            }
+        }
+
+        /**
+         * Helper method: mark the current position with the strong side to
+         * move as won, unless it is illegal or already won sooner.
+         */
+        private void markWin(int value) {
+            if (attacked(blackKing, occupied, -1)) return;
+            int index = Tablebase.index(true, whiteKing, blackKing, squares, count);
+            int current = gen.values[index] & 0xFF;
+            if (current == 0 || current > value) gen.values[index] = (byte) value;
+        }
+
+        /**
+         * Find the positions with the bare king to move which reach this
+         * position, won in ply plies, and mark those where every move loses.
+         */
+        void unmoveBareKing(int ply) {
+            int to = blackKing;
+            for (long from = Attacks.king(to) & ~occupied & ~Attacks.king(whiteKing); from != 0; from &= from - 1) {
+                blackKing = Long.numberOfTrailingZeros(from);
+                occupied ^= 1L << to | 1L << blackKing;
+                int index = Tablebase.index(false, whiteKing, blackKing, squares, count);
+                if (gen.values[index] == 0) {
+                    int slowest = slowestLoss(ply);
+                    if (slowest >= 0) {
+                        gen.values[index] = (byte) (slowest + 2);
+                        if (slowest > ply) gen.pend(slowest + 1);
+                    }
+                }
+                occupied ^= 1L << to | 1L << blackKing;
+            }
+            blackKing = to;
+        }
+
+        /**
+         * Helper method: get the most plies to mate after any move of the
+         * bare king, or -1 if a move does not lose in at most ply plies.
+         */
+        private int slowestLoss(int ply) {
+            int slowest = -1;
+            for (long targets = kingTargets(); targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int captured = pieceAt(to);
+                if (attacked(to, occupied & ~(1L << blackKing), captured)) continue;
+
+                int value;
+                if (captured >= 0) {
+                    value = external(true, whiteKing, to, captured, -1, 0);
+                }
+                else {
+                    value = gen.values[Tablebase.index(true, whiteKing, to, squares, count)] & 0xFF;
+                    if (value > ply + 1) return -1; // not resolved yet
+                }
+                if (value == 0) return -1;
+                slowest = Math.max(slowest, value - 1);
+            }
+            return slowest;
+        }
+
+        /**
+         * Helper method: look up a position after a move out of the table in
+         * a smaller table.
+         *
+         * @param strongToMove The side to move after the move
+         * @param removed The piece captured or promoted
+         * @param promotion The type promoted to, or -1 for a capture
+         * @param promotionSquare The square promoted on
+         * @return The value in the other table, 0 for a draw
+         */
+        private int external(boolean strongToMove, int whiteKing, int blackKing, int removed, int promotion, int promotionSquare) {
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == removed && promotion < 0) continue;
+                childTypes[n] = i == removed ? promotion : types[i];
+                childSquares[n++] = i == removed ? promotionSquare : squares[i];
+            }
+            if (insufficient(childTypes, n)) return 0;
+            sort(childTypes, childSquares, n);
+            byte[] table = tables.get(Tablebase.name(childTypes, n));
+            return table[Tablebase.index(strongToMove, whiteKing, blackKing, childSquares, n)] & 0xFF;
+        }
+
+        /**
+         * Helper method: whether the position can occur: no two pieces on a
+         * square, no pawns on the first or last rank, the kings apart, and
+         * the side not to move not in check.
+         */
+        private boolean isLegal() {
+            if (Long.bitCount(occupied) != count + 2) return false;
+            for (int i = 0; i < count; i++) {
+                if (types[i] == BitBoard.PAWN && (squares[i] < 8 || squares[i] >= 56)) return false;
+            }
+            if ((Attacks.king(whiteKing) & 1L << blackKing) != 0) return false;
+            return !strongToMove || !attacked(blackKing, occupied, -1);
+        }
+
+        /**
+         * Helper method: whether the strong side attacks a square, leaving
+         * out a captured piece.
+         */
+        private boolean attacked(int square, long occupied, int captured) {
+            if ((Attacks.king(whiteKing) & 1L << square) != 0) return true;
+            for (int i = 0; i < count; i++) {
+                if (i == captured) continue;
+                if ((Attacks.of(BitBoard.WHITE, types[i], squares[i], occupied) & 1L << square) != 0) return true;
+            }
+            return false;
+        }
+
+        private long kingTargets() {
+            return Attacks.king(blackKing) & ~Attacks.king(whiteKing);
+        }
+
+        private int pieceAt(int square) {
+            for (int i = 0; i < count; i++) {
+                if (squares[i] == square) return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.syntax_highlighters.chess.ai;
+
+import java.util.Arrays;
+
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * A fixed-size hash table of search results, shared between search threads.
+ *
+ * The same position is often reached through different move orders. The table
+ * remembers, by the position's hash, how deep a position was searched, the
+ * score found, whether that score is exact or a bound, and the best move, so
+ * that the search can skip positions it has already seen, or at least try the
+ * best move first.
+ *
+ * The table is made of buckets of two entries. The first entry is only
+ * replaced by results from searches at least as deep, so that expensive
+ * results survive; the second is always replaced, so that recent results are
+ * kept too.
+ *
+ * The table is kept from one move to the next, so every entry is marked with
+ * the search it was stored in. A result from an earlier search replaces the
+ * first entry whatever its depth, since its position may no longer be
+ * reachable; otherwise the deep results of old positions would fill the
+ * first entries for the rest of the game.
+ *
+ * Each entry is two longs: the data, and the key XORed with the data. The
+ * table takes no locks, so two threads may write the same entry at once and
+ * leave the halves of different results in it. Such an entry does not match
+ * the key of either position when probed, and is simply a miss.
+ */
+public final class TranspositionTable {
+    // bound types
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // the score is at least the stored one
+    public static final int UPPER = 3; // the score is at most the stored one
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int GENERATIONS = 64; // counted in the 6 free bits of an entry
+
+    // two entries per bucket, two longs per entry
+    private final long[] table;
+    private final int bucketMask;
+    private int generation = 0; // of the current search
+
+    /**
+     * Create a table using at most the given amount of memory.
+     *
+     * @param megabytes The size of the table in megabytes, at least 1
+     *
+     * @throws IllegalArgumentException if the size is less than 1
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) throw new IllegalArgumentException("Size must be at least 1 MB");
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (2 * ENTRY_BYTES));
+        buckets = Math.min(buckets, 1 << 26); // keep the array index an int
+        table = new long[(int) buckets * 4];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Look up a position.
+     *
+     * @param key The hash of the position
+     * @return The stored data, to be read with move, score, depth and bound,
+     * or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int i = (int) key & bucketMask;
+        i *= 4;
+        long data = table[i + 1];
+        if ((table[i] ^ data) == key && data != 0) return data;
+        data = table[i + 3];
+        if ((table[i + 2] ^ data) == key && data != 0) return data;
+        return 0;
+    }
+
+    /**
+     * Store the result of a search.
+     *
+     * @param key The hash of the position
+     * @param move The best move found, or PackedMove.NONE
+     * @param score The score found
+     * @param depth The depth searched, clamped to 0 to 255
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int i = (int) key & bucketMask;
+        i *= 4;
+        depth = Math.max(0, Math.min(depth, 255));
+        long data = pack(move, score, depth, bound);
+
+        long old = table[i + 1];
+        boolean same = (table[i] ^ old) == key;
+        if (same || depth >= depth(old) || generation(old) != generation) {
+            // keep the known best move if this search found none
+            if (same && move == PackedMove.NONE) data = pack(move(old), score, depth, bound);
+            table[i] = key ^ data;
+            table[i + 1] = data;
+        }
+        else {
+            table[i + 2] = key ^ data;
+            table[i + 3] = data;
+        }
+    }
+
+    /**
+     * Start a new search, after which the entries stored so far are from an
+     * earlier search. Call it before each search, not from the searching
+     * threads.
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Get the number of entries the table can hold.
+     *
+     * @return The capacity of the table
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (int) (data >> 32);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 24) & 3;
+    }
+
+    /**
+     * Helper method: get the search an entry was stored in.
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 26) & (GENERATIONS - 1);
+    }
+
+    /**
+     * Helper method: pack the fields of an entry, and the current search,
+     * into a long.
+     */
+    private long pack(int move, int score, int depth, int bound) {
+        return ((long) score << 32) | ((long) generation << 26) | ((long) bound << 24) | ((long) depth << 16) | move;
+    }
+}
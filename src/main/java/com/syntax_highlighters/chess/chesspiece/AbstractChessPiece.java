@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -125,6 +126,36 @@ public abstract class AbstractChessPiece implements IChessPiece {
         }
     }
 
+    /**
+     * Create a piece of a given bitboard piece type.
+     *
+     * @param type The piece type, BitBoard.PAWN to BitBoard.KING
+     * @param pos The position of the piece
+     * @param color The color of the piece
+     *
+     * @return A new piece of the given type
+     *
+     * @throws IllegalArgumentException if the type is not a valid piece type
+     */
+    public static IChessPiece fromPieceType(int type, Position pos, Color color) {
+        switch (type) {
+            case BitBoard.PAWN:
+                return new ChessPiecePawn(pos, color);
+            case BitBoard.KNIGHT:
+                return new ChessPieceKnight(pos, color);
+            case BitBoard.BISHOP:
+                return new ChessPieceBishop(pos, color);
+            case BitBoard.ROOK:
+                return new ChessPieceRook(pos, color);
+            case BitBoard.QUEEN:
+                return new ChessPieceQueen(pos, color);
+            case BitBoard.KING:
+                return new ChessPieceKing(pos, color);
+            default:
+                throw new IllegalArgumentException("Invalid piece type: " + type);
+        }
+    }
+
     /**
      * Given the score of the piece, figure out what piece it is.
      *
@@ -135,7 +166,7 @@ public abstract class AbstractChessPiece implements IChessPiece {
      */
     public static IChessPiece GetPiecefromScore(int x, int y, int score, Color color){
 
-        Position pos = new Position(x,y);
+        Position pos = Position.of(x,y);
         switch(score) {
             case 100:
                 return new ChessPiecePawn(pos, color);
@@ -176,7 +207,8 @@ public abstract class AbstractChessPiece implements IChessPiece {
     /**
      * Get the table for positional scores.
      *
-     * Used in getPositionalScore. Subclasses will implement.
+     * Used in getPositionalScore. Subclasses will implement. The table is
+     * shared by all pieces of a type, and must not be modified.
      *
      * @return The table used for computing positional scores
      */
@@ -194,45 +226,66 @@ public abstract class AbstractChessPiece implements IChessPiece {
      */
     List<Move> movesInDirection(int dx, int dy, Board board) {
         ArrayList<Move> moves = new ArrayList<>();
-        Position nextPos = new Position(position.getX() + dx, position.getY() + dy);
+        int x = position.getX() + dx;
+        int y = position.getY() + dy;
 
-        while (board.isOnBoard(nextPos)) {
+        while (onBoard(x, y)) {
+            Position nextPos = Position.of(x, y);
             if (board.isFriendly(this, nextPos)) break;
             if (board.isEnemy(this, nextPos)) {
                 moves.add(new Move(this.position, nextPos, board));
                 break;
             }
             moves.add(new Move(this.position, nextPos, board));
-            nextPos = new Position(nextPos.getX() + dx, nextPos.getY() + dy);
+            x += dx;
+            y += dy;
         }
 
         return moves;
     }
 
     /**
-     * Helper method: determine whether the piece, if moving in a certain
-     * direction, will end up threatening the target position.
+     * Helper method: determine whether a set of attacked squares includes the
+     * target position.
+     *
+     * @param attacks A mask of the squares the piece attacks
+     * @param target The target to see if it threatens
+     * @return true if the target is one of the attacked squares, false otherwise
+     */
+    static boolean attacks(long attacks, Position target) {
+        int square = target.index();
+        return square >= 0 && (attacks & (1L << square)) != 0;
+    }
+
+    /**
+     * Helper method: determine whether a set of attacked squares threatens the
+     * target position, not counting squares held by friendly pieces.
      *
-     * Stops when reaching another piece, when the target position is reached,
-     * or when the edge of the board is reached.
+     * Used by the sliding pieces, whose attacks stop at the first piece in
+     * every direction.
      *
-     * @param dx 0 for no horizontal movement, -1 or 1 for movement
-     * @param dy 0 for no vertical movement, -1 or 1 for movement
-     * @param target The target to see if it threatens.
+     * @param attacks A mask of the squares the piece attacks
+     * @param target The target to see if it threatens
      * @param board The board to look at
      * @return true if this piece threatens the target position, false otherwise
      */
-    boolean threatenDirection(int dx, int dy, Position target, Board board) {
-        Position nextPos = new Position(position.getX() + dx, position.getY() + dy);
-        while (board.isOnBoard(nextPos)) {
-            if (board.isFriendly(this, nextPos)) return false;
-            if (board.isEnemy(this, nextPos))
-                return nextPos.equals(target);
-            if (target.equals(nextPos)) return true;
-            nextPos = new Position(nextPos.getX() + dx, nextPos.getY() + dy);
-        }
+    boolean threatensUnlessFriendly(long attacks, Position target, Board board) {
+        long friendly = board.getBitBoard().occupancy(BitBoard.colorIndex(color));
+        return attacks(attacks & ~friendly, target);
+    }
 
-        return false;
+    /**
+     * Helper method: determine whether the coordinates are on the board.
+     *
+     * Allows walking the board using plain coordinates, so that no Position
+     * needs to be looked up for squares outside the board.
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @return true if the coordinates are on the board, false otherwise
+     */
+    static boolean onBoard(int x, int y) {
+        return x >= 1 && x <= Board.BOARD_WIDTH && y >= 1 && y <= Board.BOARD_HEIGHT;
     }
 
     /**
@@ -7,6 +7,8 @@ import java.util.stream.Stream;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -32,21 +34,23 @@ public class ChessPieceBishop extends AbstractChessPiece {
         return "B";
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-            -20, -10, -10, -10, -10, -10, -10, -20,
-            -10,   0,   0,   0,   0,   0,   0, -10,
-            -10,   0,   5,  10,  10,   5,   0, -10,
-            -10,   5,   5,  10,  10,   5,   5, -10,
-            -10,   0,  10,  10,  10,  10,   0, -10,
-            -10,  10,  10,  10,  10,  10,  10, -10,
-            -10,   5,   0,   0,   0,   0,   5, -10,
-            -20, -10, -10, -10, -10, -10, -10, -20,
-        };
+        return POSITION_SCORES;
     }
 
     /**
@@ -79,6 +83,14 @@ public class ChessPieceBishop extends AbstractChessPiece {
         return new ChessPieceBishop(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.BISHOP;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -100,9 +112,6 @@ public class ChessPieceBishop extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return threatenDirection(1, 1, p, b)
-                || threatenDirection(1, -1, p, b)
-                || threatenDirection(-1, -1, p, b)
-                || threatenDirection(-1, 1, p, b);
+        return threatensUnlessFriendly(Attacks.bishop(position.index(), b.getBitBoard().occupied()), p, b);
     }
 }
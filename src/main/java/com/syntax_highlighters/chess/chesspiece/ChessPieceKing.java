@@ -5,6 +5,8 @@ import java.util.stream.Collectors;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.CastlingMove;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
@@ -31,24 +33,26 @@ public class ChessPieceKing extends AbstractChessPiece {
         return "K";
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-            -30, -40, -40, -50, -50, -40, -40, -30,
-            -30, -40, -40, -50, -50, -40, -40, -30,
-            -30, -40, -40, -50, -50, -40, -40, -30,
-            -30, -40, -40, -50, -50, -40, -40, -30,
-            -20, -30, -30, -40, -40, -30, -30, -20,
-            -10, -20, -20, -20, -20, -20, -20, -10,
-             20,  20,   0,   0,   0,   0,  20,  20,
-             20,  30,  10,   0,   0,  10,  30,  20
-        };
+        return POSITION_SCORES;
     }
 
-    private final int[] endgamePositionScoreTable = new int[] {
+    private static final int[] ENDGAME_POSITION_SCORES = new int[] {
         -50, -40, -30, -20, -20, -30, -40, -50,
         -30, -20, -10,   0,   0, -10, -20, -30,
         -30, -10,  20,  30,  30,  20, -10, -30,
@@ -78,7 +82,7 @@ public class ChessPieceKing extends AbstractChessPiece {
         x -= 1;
         y -= 1;
 
-        return getPieceScore() + endgamePositionScoreTable[x + y * Board.BOARD_WIDTH];
+        return getPieceScore() + ENDGAME_POSITION_SCORES[x + y * Board.BOARD_WIDTH];
     }
 
     /**
@@ -143,15 +147,17 @@ public class ChessPieceKing extends AbstractChessPiece {
 
         // Check the squares between the king and rook (assuming the rook is in
         // the direction specified by direction) for whether they're occupied,
-        // threatened, or off the board (actually an error in programming,
-        // should maybe throw exception instead)
+        // or off the board (actually an error in programming, should maybe
+        // throw exception instead). The two squares the king passes over or
+        // ends up on must also not be threatened; when castling queenside,
+        // the square next to the rook may be.
+        int steps = 0;
         do {
             pos = direction.transform(pos);
-            Position finalPos = pos; // hax to make the compiler shut up
+            steps++;
             if (!board.isOnBoard(pos)
                     || board.isOccupied(pos)
-                    || board.getAllPieces(color.opponentColor()).stream()
-                            .anyMatch(p -> p.threatens(finalPos, board))                    )
+                    || steps <= 2 && isAttacked(board, pos))
                 return false;
         } while (!direction.transform(pos).equals(target));
 
@@ -173,8 +179,20 @@ public class ChessPieceKing extends AbstractChessPiece {
      * @return true if a piece threatens the king, false otherwise
      */
     public boolean isThreatened(Board board) {
-        return board.getAllPieces(getColor().opponentColor()).stream()
-            .anyMatch(p -> p.threatens(getPosition(), board));
+        return isAttacked(board, getPosition());
+    }
+
+    /**
+     * Helper method: check whether an enemy piece attacks the given position.
+     *
+     * @param board The board
+     * @param pos The position to check
+     * @return true if a piece of the opponent's color attacks the position,
+     * false otherwise
+     */
+    private boolean isAttacked(Board board, Position pos) {
+        int enemy = BitBoard.colorIndex(color.opponentColor());
+        return Attacks.isAttacked(board.getBitBoard(), pos.index(), enemy);
     }
 
     /**
@@ -185,6 +203,14 @@ public class ChessPieceKing extends AbstractChessPiece {
         return new ChessPieceKing(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.KING;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -206,6 +232,6 @@ public class ChessPieceKing extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return position.neighbors().stream().anyMatch(p::equals);
+        return attacks(Attacks.king(position.index()), p);
     }
 }
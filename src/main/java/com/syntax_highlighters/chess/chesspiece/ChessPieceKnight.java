@@ -6,6 +6,8 @@ import java.util.stream.Collectors;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -31,21 +33,23 @@ public class ChessPieceKnight extends AbstractChessPiece {
         return "N";
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-            -50, -40, -30, -30, -30, -30, -40, -50,
-            -40, -20,   0,   0,   0,   0, -20, -40,
-            -30,   0,  10,  15,  15,  10,   0, -30,
-            -30,   5,  15,  20,  20,  15,   5, -30,
-            -30,   0,  15,  20,  20,  15,   0, -30,
-            -30,   5,  10,  15,  15,  10,   5, -30,
-            -40, -20,   0,   5,   5,   0, -20, -40,
-            -50, -40, -30, -30, -30, -30, -40, -50,
-        };
+        return POSITION_SCORES;
     }
 
     /**
@@ -66,14 +70,14 @@ public class ChessPieceKnight extends AbstractChessPiece {
         int x = getPosition().getX();
         int y = getPosition().getY();
 
-        checkMove(board, possibleMoves, new Position(x+1,y+2));
-        checkMove(board, possibleMoves, new Position(x+1,y-2));
-        checkMove(board, possibleMoves, new Position(x-1,y+2));
-        checkMove(board, possibleMoves, new Position(x-1,y-2));
-        checkMove(board, possibleMoves, new Position(x+2,y+1));
-        checkMove(board, possibleMoves, new Position(x+2,y-1));
-        checkMove(board, possibleMoves, new Position(x-2,y+1));
-        checkMove(board, possibleMoves, new Position(x-2,y-1));
+        checkMove(board, possibleMoves, x+1, y+2);
+        checkMove(board, possibleMoves, x+1, y-2);
+        checkMove(board, possibleMoves, x-1, y+2);
+        checkMove(board, possibleMoves, x-1, y-2);
+        checkMove(board, possibleMoves, x+2, y+1);
+        checkMove(board, possibleMoves, x+2, y-1);
+        checkMove(board, possibleMoves, x-2, y+1);
+        checkMove(board, possibleMoves, x-2, y-1);
         return possibleMoves.stream()
                 .filter(m -> board.moveDoesntPutKingInCheck(m, color))
                 .collect(Collectors.toList());
@@ -84,10 +88,12 @@ public class ChessPieceKnight extends AbstractChessPiece {
      * 
      * @param board The current board state
      * @param possibleMoves Reference to the list of possible moves
-     * @param pos The position to check
+     * @param x The X coordinate of the position to check
+     * @param y The Y coordinate of the position to check
      */
-    private void checkMove(Board board, ArrayList<Move> possibleMoves, Position pos){
-        if(board !=null && board.isOnBoard(pos)){
+    private void checkMove(Board board, ArrayList<Move> possibleMoves, int x, int y){
+        if(board !=null && onBoard(x, y)){
+                Position pos = Position.of(x, y);
                 if(board.getAtPosition(pos) ==null || board.isEnemy(this,pos)){ //kan også bruke isFriendly-metoden
                     possibleMoves.add(new Move(this.getPosition(), pos, board));
                 }
@@ -103,6 +109,14 @@ public class ChessPieceKnight extends AbstractChessPiece {
         return new ChessPieceKnight(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.KNIGHT;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -124,7 +138,6 @@ public class ChessPieceKnight extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return Math.abs(p.getX() - position.getX()) == 1 && Math.abs(p.getY() - position.getY()) == 2
-                || Math.abs(p.getX() - position.getX()) == 2 && Math.abs(p.getY() - position.getY()) == 1;
+        return attacks(Attacks.knight(position.index()), p);
     }
 }
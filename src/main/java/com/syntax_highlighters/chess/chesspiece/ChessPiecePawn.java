@@ -6,6 +6,8 @@ import java.util.stream.Collectors;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.EnPassantMove;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
@@ -33,21 +35,23 @@ public class ChessPiecePawn extends AbstractChessPiece {
         return ""; // pawns are denoted by their lack of a letter
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+         0,  0,   0,   0,   0,   0,  0,  0,
+        50, 50,  50,  50,  50,  50, 50, 50,
+        10, 10,  20,  30,  30,  20, 10, 10,
+         5,  5,  10,  25,  25,  10,  5,  5,
+         0,  0,   0,  20,  20,   0,  0,  0,
+         5, -5, -10,   0,   0, -10, -5,  5,
+         5, 10,  10, -20, -20,  10, 10,  5,
+         0,  0,   0,   0,   0,   0,  0,  0
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-             0,  0,   0,   0,   0,   0,  0,  0,
-            50, 50,  50,  50,  50,  50, 50, 50,
-            10, 10,  20,  30,  30,  20, 10, 10,
-             5,  5,  10,  25,  25,  10,  5,  5,
-             0,  0,   0,  20,  20,   0,  0,  0,
-             5, -5, -10,   0,   0, -10, -5,  5,
-             5, 10,  10, -20, -20,  10, 10,  5,
-             0,  0,   0,   0,   0,   0,  0,  0
-        };
+        return POSITION_SCORES;
     }
 
     /**
@@ -93,12 +97,15 @@ public class ChessPiecePawn extends AbstractChessPiece {
         }
 
         // add move to take enemies, if possible
-        takeEnemiesMove(board, possibleMoves, this.forward(1).east(1));
-        takeEnemiesMove(board, possibleMoves, this.forward(1).west(1));
+        int x = pos.getX();
+        int y = pos.getY();
+        int dy = direction();
+        takeEnemiesMove(board, possibleMoves, x + 1, y + dy);
+        takeEnemiesMove(board, possibleMoves, x - 1, y + dy);
         
         // add move to perform en passant, if possible
-        enPassantCheck(board, possibleMoves, pos.east(1));
-        enPassantCheck(board, possibleMoves, pos.west(1));
+        enPassantCheck(board, possibleMoves, x + 1, y);
+        enPassantCheck(board, possibleMoves, x - 1, y);
 
         return possibleMoves.stream()
                 .filter(m -> board.moveDoesntPutKingInCheck(m, color))
@@ -112,10 +119,12 @@ public class ChessPiecePawn extends AbstractChessPiece {
      *
      * @param board The current state of the board
      * @param possibleMoves Reference to the list of possible moves
-     * @param pos The position to perform en passant onto
+     * @param x The X coordinate of the position to perform en passant onto
+     * @param y The Y coordinate of the position to perform en passant onto
      */
-    private void enPassantCheck (Board board, ArrayList<Move> possibleMoves, Position pos) {
-        if (board.isOnBoard(pos)) {
+    private void enPassantCheck (Board board, ArrayList<Move> possibleMoves, int x, int y) {
+        if (onBoard(x, y)) {
+            Position pos = Position.of(x, y);
             // en passant can only be performed at a pawn's fifth rank
             if (color.isWhite() && pos.getY() != 5) return;
             if (color.isBlack() && pos.getY() != 4) return; // this is black's "fifth rank"
@@ -149,10 +158,12 @@ public class ChessPiecePawn extends AbstractChessPiece {
      *
      * @param board The current state of the board
      * @param possibleMoves Reference to the list of possible moves
-     * @param pos The position to perform capture onto
+     * @param x The X coordinate of the position to perform capture onto
+     * @param y The Y coordinate of the position to perform capture onto
      */
-    private void takeEnemiesMove (Board board, ArrayList<Move> possibleMoves, Position pos) {
-        if (board.isOnBoard(pos)) {
+    private void takeEnemiesMove (Board board, ArrayList<Move> possibleMoves, int x, int y) {
+        if (onBoard(x, y)) {
+            Position pos = Position.of(x, y);
             if (board.isEnemy(this, pos)) {
                 addRegularMove(board, possibleMoves, pos);
             }
@@ -190,6 +201,14 @@ public class ChessPiecePawn extends AbstractChessPiece {
         return new ChessPiecePawn(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.PAWN;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -219,6 +238,15 @@ public class ChessPiecePawn extends AbstractChessPiece {
         return this.getPosition().south(nSteps);
     }
 
+    /**
+     * Helper method: return the direction the pawn moves in along the Y axis.
+     *
+     * @return 1 if the pawn is white, -1 if it is black
+     */
+    private int direction() {
+        return color.isWhite() ? 1 : -1;
+    }
+
     /**
      * Determine whether this piece threatens a given position.
      *
@@ -242,7 +270,7 @@ public class ChessPiecePawn extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return p.equals(forward(1).east(1)) || p.equals(forward(1).west(1));
+        return attacks(Attacks.pawn(BitBoard.colorIndex(color), position.index()), p);
             // en passant
             // NOTE: This part is actually broken, for several reasons:
             // 1. only applies to pawns having just moved two steps forward, but
@@ -7,6 +7,8 @@ import java.util.stream.Stream;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -32,21 +34,23 @@ public class ChessPieceQueen extends AbstractChessPiece {
         return "Q";
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+        -20, -10, -10, -5, -5, -10, -10, -20,
+        -10,   0,   0,  0,  0,   0,   0, -10,
+        -10,   0,   5,  5,  5,   5,   0, -10,
+         -5,   0,   5,  5,  5,   5,   0,  -5,
+          0,   0,   5,  5,  5,   5,   0,  -5,
+        -10,   5,   5,  5,  5,   5,   0, -10,
+        -10,   0,   5,  0,  0,   0,   0, -10,
+        -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-            -20, -10, -10, -5, -5, -10, -10, -20,
-            -10,   0,   0,  0,  0,   0,   0, -10,
-            -10,   0,   5,  5,  5,   5,   0, -10,
-             -5,   0,   5,  5,  5,   5,   0,  -5,
-              0,   0,   5,  5,  5,   5,   0,  -5,
-            -10,   5,   5,  5,  5,   5,   0, -10,
-            -10,   0,   5,  0,  0,   0,   0, -10,
-            -20, -10, -10, -5, -5, -10, -10, -20
-        };
+        return POSITION_SCORES;
     }
 
     /**
@@ -85,6 +89,14 @@ public class ChessPieceQueen extends AbstractChessPiece {
         return new ChessPieceQueen(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.QUEEN;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,13 +118,6 @@ public class ChessPieceQueen extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return threatenDirection(1, 1, p, b)
-                || threatenDirection(1, -1, p, b)
-                || threatenDirection(-1, -1, p, b)
-                || threatenDirection(-1, 1, p, b)
-                || threatenDirection(0, 1, p, b)
-                || threatenDirection(0, -1, p, b)
-                || threatenDirection(1, 0, p, b)
-                || threatenDirection(-1, 0, p, b);
+        return threatensUnlessFriendly(Attacks.queen(position.index(), b.getBitBoard().occupied()), p, b);
     }
 }
@@ -7,6 +7,8 @@ import java.util.stream.Stream;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -32,21 +34,23 @@ public class ChessPieceRook extends AbstractChessPiece {
         return "R";
     }
 
+    private static final int[] POSITION_SCORES = new int[] {
+         0,  0,  0,  0,  0,  0,  0,  0,
+         5, 10, 10, 10, 10, 10, 10,  5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+         0,  0,  0,  5,  5,  0,  0,  0
+    };
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected int[] getPositionScoreTable() {
-        return new int[]{
-             0,  0,  0,  0,  0,  0,  0,  0,
-             5, 10, 10, 10, 10, 10, 10,  5,
-            -5,  0,  0,  0,  0,  0,  0, -5,
-            -5,  0,  0,  0,  0,  0,  0, -5,
-            -5,  0,  0,  0,  0,  0,  0, -5,
-            -5,  0,  0,  0,  0,  0,  0, -5,
-            -5,  0,  0,  0,  0,  0,  0, -5,
-             0,  0,  0,  5,  5,  0,  0,  0
-        };
+        return POSITION_SCORES;
     }
 
     /**
@@ -84,6 +88,14 @@ public class ChessPieceRook extends AbstractChessPiece {
         return new ChessPieceRook(this.getPosition(), this.getColor());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPieceType() {
+        return BitBoard.ROOK;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -105,9 +117,6 @@ public class ChessPieceRook extends AbstractChessPiece {
      */
     @Override
     public boolean threatens(Position p, Board b) {
-        return threatenDirection(0, 1, p, b)
-                || threatenDirection(0, -1, p, b)
-                || threatenDirection(1, 0, p, b)
-                || threatenDirection(-1, 0, p, b);
+        return threatensUnlessFriendly(Attacks.rook(position.index(), b.getBitBoard().occupied()), p, b);
     }
 }
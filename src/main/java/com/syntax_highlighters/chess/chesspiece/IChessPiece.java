@@ -4,6 +4,7 @@ import java.util.List;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.engine.BitBoard;
 import com.syntax_highlighters.chess.move.Move;
 import com.syntax_highlighters.chess.Position;
 
@@ -71,6 +72,13 @@ public interface IChessPiece {
      */
     IChessPiece copy();
 
+    /**
+     * Get the type of the piece, as used to index the board's bitboards.
+     *
+     * @return One of the piece type constants in {@link BitBoard}
+     */
+    int getPieceType();
+
     /**
      * Get the numerical value (score/weight) of a piece.
      *
@@ -0,0 +1,374 @@
+package com.syntax_highlighters.chess.engine;
+
+/**
+ * Precomputed attack tables.
+ *
+ * Knight, king and pawn attacks depend only on the square the piece stands on,
+ * and are looked up directly in a table. Rook and bishop attacks also depend on
+ * which squares are occupied along their rays; these are looked up using magic
+ * bitboards: the relevant occupancy bits are multiplied by a per-square magic
+ * number, and the top bits of the product index a table holding the attack set
+ * for that occupancy.
+ *
+ * The magic numbers are hardcoded; the tables themselves are filled when the
+ * class is loaded.
+ *
+ * All attack sets include squares occupied by pieces of either color; callers
+ * mask out their own pieces where that matters.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Magic numbers, one per square, found by a random search. Each maps every
+    // relevant occupancy of its square to a table slot without destructive
+    // collisions; this is verified when the tables are filled.
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+        0x048001C000245084L, 0x0040100020004000L, 0x1200082040108200L, 0x1480048008011002L,
+        0x1200080402001020L, 0x0100010002080400L, 0x1080010002004080L, 0x4100008026430002L,
+        0x0040800020400080L, 0x0800400040201001L, 0x0801001040200100L, 0x0000801000800800L,
+        0x0822804400080080L, 0x003200880A00103CL, 0x0021010100040200L, 0x0002000100420084L,
+        0x0000808000400028L, 0x4000808040002000L, 0x0201828060005000L, 0x8900808010000804L,
+        0x1010808004000800L, 0x0001010008020400L, 0x0010440002010890L, 0x0000020001004084L,
+        0x4480208080104003L, 0x00C0400080802000L, 0x0060022080100A80L, 0x4000090100201000L,
+        0x6091018500100801L, 0x00A2000200100408L, 0x0212008040400100L, 0x0019040200008061L,
+        0x0881088005002041L, 0x0030002000404002L, 0x402060008180100CL, 0x22C142000A002010L,
+        0x00AA001022000408L, 0x0114000802020010L, 0x2180482224000170L, 0x002008810A000044L,
+        0x1000814000618004L, 0x0040004020008080L, 0x0000110020010044L, 0x8008201001010008L,
+        0x0888010008850010L, 0x0004000200048080L, 0x0402020001008080L, 0x0001084084060001L,
+        0x1000208000401080L, 0x0500420028810600L, 0x00A000C800100140L, 0x0010090010042100L,
+        0x8424800400080080L, 0x1004800400020080L, 0x8000011A88102C00L, 0x0400010090440200L,
+        0x1002408001502501L, 0xC700400021008011L, 0x0020402008120082L, 0x0009000804201001L,
+        0x1402000411882002L, 0x0501000400020801L, 0x0800008102081004L, 0x0801000088220041L
+    };
+
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+        0x5008420802040010L, 0x60B0102881104480L, 0x0841022204400001L, 0x8004241180020031L,
+        0x020D104100001004L, 0x1102080289085008L, 0x0804088411080000L, 0x200220240C200804L,
+        0x6A00401001AA008AL, 0x4020040808841084L, 0x0820100880831021L, 0x0813040422884240L,
+        0x2000040420002029L, 0x20E0008860081000L, 0x0020110801106801L, 0x0A80408420880400L,
+        0x24212008A2100200L, 0x0042822058013104L, 0x8130000804202424L, 0x8008040088210000L,
+        0x2024038211200800L, 0x0009000420884020L, 0x8004880422211004L, 0x0001081224120200L,
+        0x1010400005045440L, 0x0131048020140410L, 0x21190900100C0120L, 0x0402002002008200L,
+        0x0010820004010402L, 0x0000420301008202L, 0x4804410D28480204L, 0x100E022024441240L,
+        0x2008080890042003L, 0x0061041081023028L, 0x9004180400020400L, 0x0080A08020080200L,
+        0x6004100400098028L, 0x0081004500820110L, 0x00882A2090040080L, 0x0628008028090110L,
+        0x0108210808002090L, 0x0086048420080520L, 0x8401018047001010L, 0x005208A018004100L,
+        0x4400082104001444L, 0x0090101208102020L, 0x8010020A30500400L, 0x20290542020A0080L,
+        0x10220A10020A4000L, 0x0048425410280000L, 0x42000201008840F1L, 0x4000001894140080L,
+        0x8040002002048000L, 0x0048082218120010L, 0x000A821808011000L, 0x1008080820882208L,
+        0x0011004B10080240L, 0x00000C2084042000L, 0x0100200244062100L, 0x4840020100840410L,
+        0x8003048008210101L, 0x4000210608102102L, 0x400040100121410AL, 0x40021805010C0300L
+    };
+
+    /**
+     * Magic lookup parameters for a single square.
+     */
+    private static final class Magic {
+        final long mask;
+        final long magic;
+        final int shift;
+        final int offset;
+
+        Magic(long mask, long magic, int shift, int offset) {
+            this.mask = mask;
+            this.magic = magic;
+            this.shift = shift;
+            this.offset = offset;
+        }
+
+        int index(long occupied) {
+            return offset + (int) (((occupied & mask) * magic) >>> shift);
+        }
+    }
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT[sq] = steps(sq, knightSteps);
+            KING[sq] = steps(sq, kingSteps);
+            PAWN[BitBoard.WHITE][sq] = steps(sq, new int[][]{{1, 1}, {-1, 1}});
+            PAWN[BitBoard.BLACK][sq] = steps(sq, new int[][]{{1, -1}, {-1, -1}});
+        }
+
+        ROOK_TABLE = new long[tableSize(ROOK_DIRECTIONS)];
+        BISHOP_TABLE = new long[tableSize(BISHOP_DIRECTIONS)];
+        initMagics(ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS, ROOK_MAGICS, ROOK_TABLE);
+        initMagics(BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS, BISHOP_MAGICS, BISHOP_TABLE);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) continue;
+                long bitA = 1L << a;
+                long bitB = 1L << b;
+                if ((rook(a, 0L) & bitB) != 0) {
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | bitA | bitB;
+                    BETWEEN[a][b] = rook(a, bitB) & rook(b, bitA);
+                }
+                else if ((bishop(a, 0L) & bitB) != 0) {
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | bitA | bitB;
+                    BETWEEN[a][b] = bishop(a, bitB) & bishop(b, bitA);
+                }
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    /**
+     * Get the squares attacked by a knight.
+     *
+     * @param square The square the knight stands on
+     * @return A mask of the attacked squares
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Get the squares attacked by a king.
+     *
+     * @param square The square the king stands on
+     * @return A mask of the attacked squares
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Get the squares attacked by a pawn.
+     *
+     * Only the diagonal captures are included; pawn pushes are not attacks.
+     *
+     * @param color The color index of the pawn
+     * @param square The square the pawn stands on
+     * @return A mask of the attacked squares
+     */
+    public static long pawn(int color, int square) {
+        return PAWN[color][square];
+    }
+
+    /**
+     * Get the squares attacked by a rook.
+     *
+     * @param square The square the rook stands on
+     * @param occupied A mask of all occupied squares
+     * @return A mask of the attacked squares, up to and including the first
+     * occupied square in every direction
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_MAGICS[square].index(occupied)];
+    }
+
+    /**
+     * Get the squares attacked by a bishop.
+     *
+     * @param square The square the bishop stands on
+     * @param occupied A mask of all occupied squares
+     * @return A mask of the attacked squares, up to and including the first
+     * occupied square in every direction
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_MAGICS[square].index(occupied)];
+    }
+
+    /**
+     * Get the squares attacked by a queen.
+     *
+     * @param square The square the queen stands on
+     * @param occupied A mask of all occupied squares
+     * @return A mask of the attacked squares
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Get the squares strictly between two squares on the same rank, file or
+     * diagonal.
+     *
+     * @param a One of the squares
+     * @param b The other square
+     * @return A mask of the squares between a and b, or 0 if they are not
+     * aligned or are next to each other
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Get the full line through two squares on the same rank, file or
+     * diagonal.
+     *
+     * @param a One of the squares
+     * @param b The other square
+     * @return A mask of the whole rank, file or diagonal through a and b, from
+     * edge to edge, or 0 if they are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Get the squares attacked by a piece of the given type.
+     *
+     * @param color The color index of the piece
+     * @param type The piece type
+     * @param square The square the piece stands on
+     * @param occupied A mask of all occupied squares
+     * @return A mask of the attacked squares
+     */
+    public static long of(int color, int type, int square, long occupied) {
+        switch (type) {
+            case BitBoard.PAWN:   return pawn(color, square);
+            case BitBoard.KNIGHT: return knight(square);
+            case BitBoard.BISHOP: return bishop(square, occupied);
+            case BitBoard.ROOK:   return rook(square, occupied);
+            case BitBoard.QUEEN:  return queen(square, occupied);
+            case BitBoard.KING:   return king(square);
+            default: throw new IllegalArgumentException("Invalid piece type: " + type);
+        }
+    }
+
+    /**
+     * Get all pieces of a color that attack a square.
+     *
+     * @param board The bitboards to look at
+     * @param square The square to check
+     * @param byColor The color index of the attacking side
+     * @param occupied The occupancy to use for sliding pieces
+     * @return A mask of the squares holding attacking pieces
+     */
+    public static long attackers(BitBoard board, int square, int byColor, long occupied) {
+        long rooks = board.pieces(byColor, BitBoard.ROOK) | board.pieces(byColor, BitBoard.QUEEN);
+        long bishops = board.pieces(byColor, BitBoard.BISHOP) | board.pieces(byColor, BitBoard.QUEEN);
+        // a pawn of the attacking color attacks the square if a pawn of the
+        // other color on that square would attack the pawn
+        return (PAWN[byColor ^ 1][square] & board.pieces(byColor, BitBoard.PAWN))
+            | (KNIGHT[square] & board.pieces(byColor, BitBoard.KNIGHT))
+            | (KING[square] & board.pieces(byColor, BitBoard.KING))
+            | (rook(square, occupied) & rooks)
+            | (bishop(square, occupied) & bishops);
+    }
+
+    /**
+     * Check whether a square is attacked by any piece of a color.
+     *
+     * @param board The bitboards to look at
+     * @param square The square to check
+     * @param byColor The color index of the attacking side
+     * @return true if the square is attacked, false otherwise
+     */
+    public static boolean isAttacked(BitBoard board, int square, int byColor) {
+        return attackers(board, square, byColor, board.occupied()) != 0;
+    }
+
+    /**
+     * Helper method: compute the mask of single steps from a square.
+     */
+    private static long steps(int square, int[][] deltas) {
+        int x = square & 7;
+        int y = square >>> 3;
+        long result = 0L;
+        for (int[] d : deltas) {
+            int nx = x + d[0];
+            int ny = y + d[1];
+            if (nx >= 0 && nx < 8 && ny >= 0 && ny < 8) result |= 1L << (ny * 8 + nx);
+        }
+        return result;
+    }
+
+    /**
+     * Helper method: compute sliding attacks by walking the rays.
+     *
+     * Used only to fill the magic tables.
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long result = 0L;
+        for (int[] d : directions) {
+            int x = (square & 7) + d[0];
+            int y = (square >>> 3) + d[1];
+            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                long bit = 1L << (y * 8 + x);
+                result |= bit;
+                if ((occupied & bit) != 0) break;
+                x += d[0];
+                y += d[1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Helper method: compute the relevant occupancy mask of a square.
+     *
+     * The last square of every ray is left out, since a piece there cannot
+     * block anything.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long result = 0L;
+        for (int[] d : directions) {
+            int x = (square & 7) + d[0];
+            int y = (square >>> 3) + d[1];
+            while (x + d[0] >= 0 && x + d[0] < 8 && y + d[1] >= 0 && y + d[1] < 8) {
+                result |= 1L << (y * 8 + x);
+                x += d[0];
+                y += d[1];
+            }
+        }
+        return result;
+    }
+
+    private static int tableSize(int[][] directions) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            size += 1 << Long.bitCount(relevantMask(sq, directions));
+        }
+        return size;
+    }
+
+    /**
+     * Helper method: fill the attack table using the given magic numbers.
+     *
+     * @throws IllegalStateException if a magic number maps two occupancies
+     * with different attacks to the same slot
+     */
+    private static void initMagics(int[][] directions, long[] numbers, Magic[] magics, long[] table) {
+        int offset = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = relevantMask(sq, directions);
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+            Magic magic = new Magic(mask, numbers[sq], 64 - bits, offset);
+            boolean[] filled = new boolean[size];
+
+            // enumerate all subsets of the mask (Carry-Rippler)
+            long subset = 0L;
+            for (int i = 0; i < size; i++) {
+                long attacks = slidingAttacks(sq, subset, directions);
+                int index = magic.index(subset);
+                if (filled[index - offset] && table[index] != attacks)
+                    throw new IllegalStateException("Bad magic number for square " + sq);
+                filled[index - offset] = true;
+                table[index] = attacks;
+                subset = (subset - mask) & mask;
+            }
+
+            magics[sq] = magic;
+            offset += size;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.syntax_highlighters.chess.engine;
+
+import com.syntax_highlighters.chess.Color;
+
+/**
+ * Bitboard representation of the pieces on a board.
+ *
+ * Holds one 64-bit word per piece type and color, where bit n is set if a piece
+ * of that type and color stands on square n, plus one occupancy mask per color
+ * and one for the whole board. Squares are numbered from 0 (a1) to 63 (h8),
+ * rank by rank, so square = (y - 1) * 8 + (x - 1) for a one-based Position.
+ *
+ * This class only keeps track of where pieces are. It does not know anything
+ * about the rules of chess, and it performs no validity checks; the Board is
+ * responsible for keeping it in sync with the pieces it holds.
+ */
+public final class BitBoard {
+    // Piece types, used to index the piece bitboards.
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    public static final int PIECE_TYPES = 6;
+
+    // Colors, used to index the piece and occupancy bitboards.
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    private final long[][] pieces = new long[2][PIECE_TYPES];
+    private final long[] occupancy = new long[2];
+    private long occupied = 0L;
+
+    /**
+     * Get the bitboard index of a color.
+     *
+     * @param color The color to look up
+     * @return WHITE or BLACK
+     */
+    public static int colorIndex(Color color) {
+        return color.isWhite() ? WHITE : BLACK;
+    }
+
+    /**
+     * Get the square index of a one-based board coordinate.
+     *
+     * No bounds checks.
+     *
+     * @param x The X coordinate, 1 to 8
+     * @param y The Y coordinate, 1 to 8
+     * @return The square index, 0 to 63
+     */
+    public static int square(int x, int y) {
+        return (y - 1) * 8 + (x - 1);
+    }
+
+    /**
+     * Add a piece to the bitboards.
+     *
+     * @param color The color index of the piece
+     * @param type The type of the piece
+     * @param square The square the piece stands on
+     */
+    public void add(int color, int type, int square) {
+        long bit = 1L << square;
+        pieces[color][type] |= bit;
+        occupancy[color] |= bit;
+        occupied |= bit;
+    }
+
+    /**
+     * Remove a piece from the bitboards.
+     *
+     * @param color The color index of the piece
+     * @param type The type of the piece
+     * @param square The square the piece stood on
+     */
+    public void remove(int color, int type, int square) {
+        long bit = ~(1L << square);
+        pieces[color][type] &= bit;
+        occupancy[color] &= bit;
+        occupied &= bit;
+    }
+
+    /**
+     * Move a piece to an empty square.
+     *
+     * @param color The color index of the piece
+     * @param type The type of the piece
+     * @param from The square the piece stands on
+     * @param to The square the piece should stand on
+     */
+    public void move(int color, int type, int from, int to) {
+        long bits = (1L << from) | (1L << to);
+        pieces[color][type] ^= bits;
+        occupancy[color] ^= bits;
+        occupied ^= bits;
+    }
+
+    /**
+     * Get the bitboard of all pieces of a given type and color.
+     *
+     * @param color The color index
+     * @param type The piece type
+     * @return A mask of the squares holding such pieces
+     */
+    public long pieces(int color, int type) {
+        return pieces[color][type];
+    }
+
+    /**
+     * Get the bitboard of all pieces of a given type, regardless of color.
+     *
+     * @param type The piece type
+     * @return A mask of the squares holding such pieces
+     */
+    public long pieces(int type) {
+        return pieces[WHITE][type] | pieces[BLACK][type];
+    }
+
+    /**
+     * Get the bitboard of all pieces of a given color.
+     *
+     * @param color The color index
+     * @return A mask of the squares occupied by that color
+     */
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    /**
+     * Get the bitboard of all occupied squares.
+     *
+     * @return A mask of all occupied squares
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * Check whether a square is occupied.
+     *
+     * @param square The square to check
+     * @return true if any piece stands on the square, false otherwise
+     */
+    public boolean isOccupied(int square) {
+        return (occupied & (1L << square)) != 0;
+    }
+
+    /**
+     * Get the color index of the piece on a square.
+     *
+     * @param square The square to check
+     * @return WHITE or BLACK, or -1 if the square is empty
+     */
+    public int colorAt(int square) {
+        long bit = 1L << square;
+        if ((occupancy[WHITE] & bit) != 0) return WHITE;
+        if ((occupancy[BLACK] & bit) != 0) return BLACK;
+        return -1;
+    }
+
+    /**
+     * Get the type of the piece on a square.
+     *
+     * @param square The square to check
+     * @return The piece type, or -1 if the square is empty
+     */
+    public int typeAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) return -1;
+        for (int type = 0; type < PIECE_TYPES; type++) {
+            if (((pieces[WHITE][type] | pieces[BLACK][type]) & bit) != 0) return type;
+        }
+        return -1;
+    }
+
+    /**
+     * Count the pieces on the board.
+     *
+     * @return The number of occupied squares
+     */
+    public int pieceCount() {
+        return Long.bitCount(occupied);
+    }
+
+    /**
+     * Count the pieces of a given color.
+     *
+     * @param color The color index
+     * @return The number of squares occupied by that color
+     */
+    public int pieceCount(int color) {
+        return Long.bitCount(occupancy[color]);
+    }
+
+    /**
+     * Count the pieces of a given type and color.
+     *
+     * @param color The color index
+     * @param type The piece type
+     * @return The number of such pieces on the board
+     */
+    public int pieceCount(int color, int type) {
+        return Long.bitCount(pieces[color][type]);
+    }
+
+    /**
+     * Remove all pieces.
+     */
+    public void clear() {
+        for (int c = 0; c < 2; c++) {
+            occupancy[c] = 0L;
+            for (int t = 0; t < PIECE_TYPES; t++) pieces[c][t] = 0L;
+        }
+        occupied = 0L;
+    }
+}
@@ -0,0 +1,122 @@
+package com.syntax_highlighters.chess.engine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of threads for the chess engine to think on.
+ *
+ * The engine can keep every core busy for seconds at a time. Run on the
+ * JVM-wide common pool, or on a new thread for every move, it competes with
+ * everything else in the process, including the render thread. An engine
+ * executor runs at most a fixed number of tasks at once, queueing the rest,
+ * on threads of a given priority, so the engine's share of the CPU can be
+ * capped. By default it leaves one core free and runs just below normal
+ * priority.
+ *
+ * The threads are daemons, started when needed and stopped after being idle
+ * for a while, so an executor that is no longer used costs nothing.
+ */
+public final class EngineExecutor implements Executor {
+    public static final int DEFAULT_PRIORITY = Thread.NORM_PRIORITY - 1;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * Create an executor with the default parallelism and priority.
+     */
+    public EngineExecutor() {
+        this(defaultParallelism(), DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Create an executor.
+     *
+     * @param parallelism The largest number of tasks to run at once
+     * @param priority The priority of the threads, from Thread.MIN_PRIORITY
+     * to Thread.MAX_PRIORITY
+     *
+     * @throws IllegalArgumentException if the parallelism is less than 1, or
+     * the priority is out of range
+     */
+    public EngineExecutor(int parallelism, int priority) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY)
+            throw new IllegalArgumentException("Invalid thread priority " + priority);
+
+        String prefix = "engine-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(parallelism, parallelism,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, prefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(priority);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the default parallelism: all processors but one, which is left for
+     * the rest of the program, and at least one.
+     *
+     * @return The default parallelism
+     */
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Get the largest number of tasks run at once.
+     *
+     * @return The parallelism of the executor
+     */
+    public int getParallelism() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    /**
+     * Run a task on the executor, as soon as a thread is free.
+     *
+     * @param task The task to run
+     * @return A future completing when the task has run
+     */
+    public Future<?> submit(Runnable task) {
+        return pool.submit(task);
+    }
+
+    /**
+     * Run a task with a result on the executor, as soon as a thread is free.
+     *
+     * @param task The task to run
+     * @param <T> The type of the result
+     * @return A future completing with the result of the task
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return pool.submit(task);
+    }
+
+    /**
+     * Stop accepting tasks, and let the threads end once the queued tasks are
+     * done.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
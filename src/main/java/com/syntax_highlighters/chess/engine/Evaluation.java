@@ -0,0 +1,109 @@
+package com.syntax_highlighters.chess.engine;
+
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.AbstractChessPiece;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+
+/**
+ * Precomputed piece-square scores for the static evaluation.
+ *
+ * The score of a piece is its material value plus a bonus depending on its
+ * square, taken from the tables of the pieces themselves. Two scores are kept:
+ * one for the middlegame and one for the endgame. They only differ for the
+ * king, which should hide early on and come out once the board empties.
+ *
+ * The game phase is measured by the remaining non-pawn material, from
+ * MAX_PHASE with all pieces on the board down to 0 with none left, and the
+ * final score blends the two scores accordingly. Since every table entry
+ * depends only on color, piece type and square, the board can keep the
+ * totals up to date as pieces move, which makes evaluation O(1).
+ */
+public final class Evaluation {
+    // phase weight per piece type; the starting position adds up to MAX_PHASE
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+    private static final int[][][] MIDDLEGAME = new int[2][BitBoard.PIECE_TYPES][64];
+    private static final int[][][] ENDGAME = new int[2][BitBoard.PIECE_TYPES][64];
+    private static final int[] MATERIAL = new int[BitBoard.PIECE_TYPES];
+
+    static {
+        Color[] colors = {Color.WHITE, Color.BLACK};
+        for (Color color : colors) {
+            int c = BitBoard.colorIndex(color);
+            for (int t = 0; t < BitBoard.PIECE_TYPES; t++) {
+                IChessPiece piece = AbstractChessPiece.fromPieceType(t, Position.fromIndex(0), color);
+                MATERIAL[t] = piece.getPieceScore();
+                for (int sq = 0; sq < 64; sq++) {
+                    piece.setPosition(Position.fromIndex(sq));
+                    MIDDLEGAME[c][t][sq] = piece.getPositionalScore();
+                    ENDGAME[c][t][sq] = t == BitBoard.KING
+                        ? ((ChessPieceKing) piece).getEndgamePositionalScore()
+                        : MIDDLEGAME[c][t][sq];
+                }
+            }
+        }
+    }
+
+    private Evaluation() {}
+
+    /**
+     * Get the middlegame score of a piece on a square.
+     *
+     * @param color The color of the piece, BitBoard.WHITE or BitBoard.BLACK
+     * @param type The type of the piece, BitBoard.PAWN to BitBoard.KING
+     * @param square The square of the piece
+     * @return The material and positional score of the piece
+     */
+    public static int middlegame(int color, int type, int square) {
+        return MIDDLEGAME[color][type][square];
+    }
+
+    /**
+     * Get the endgame score of a piece on a square.
+     *
+     * @param color The color of the piece, BitBoard.WHITE or BitBoard.BLACK
+     * @param type The type of the piece, BitBoard.PAWN to BitBoard.KING
+     * @param square The square of the piece
+     * @return The material and positional score of the piece
+     */
+    public static int endgame(int color, int type, int square) {
+        return ENDGAME[color][type][square];
+    }
+
+    /**
+     * Get the material value of a piece, without its positional bonus.
+     *
+     * @param type The type of the piece, BitBoard.PAWN to BitBoard.KING
+     * @return The value of the piece
+     */
+    public static int material(int type) {
+        return MATERIAL[type];
+    }
+
+    /**
+     * Get how much a piece counts towards the game phase.
+     *
+     * @param type The type of the piece, BitBoard.PAWN to BitBoard.KING
+     * @return The phase weight of the piece
+     */
+    public static int phaseWeight(int type) {
+        return PHASE_WEIGHTS[type];
+    }
+
+    /**
+     * Blend a middlegame and an endgame score by the game phase.
+     *
+     * @param middlegame The middlegame score
+     * @param endgame The endgame score
+     * @param phase The phase, MAX_PHASE for the opening and 0 for a bare
+     * endgame; larger values (after promotions) count as MAX_PHASE
+     * @return The tapered score
+     */
+    public static int taper(int middlegame, int endgame, int phase) {
+        if (phase > MAX_PHASE) phase = MAX_PHASE;
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
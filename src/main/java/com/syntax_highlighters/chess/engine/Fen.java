@@ -0,0 +1,105 @@
+package com.syntax_highlighters.chess.engine;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.AbstractChessPiece;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+
+/**
+ * Sets up boards from Forsyth-Edwards Notation (FEN).
+ *
+ * A FEN string describes the pieces rank by rank from the 8th, the side to
+ * move, the castling rights and the en passant target square, like
+ * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". The move
+ * counters at the end are optional and ignored.
+ *
+ * The board has no castling rights or move counters of its own, so they are
+ * mapped onto the pieces: a king or rook may castle only if it has not moved,
+ * and a pawn may double step only from its starting rank.
+ */
+public final class Fen {
+    public static final String START =
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECES = "pnbrqk";
+
+    private Fen() {}
+
+    /**
+     * Set up a board from a FEN string.
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @return A new board with the position, and the side to move set
+     *
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static Board parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) throw new IllegalArgumentException("Invalid FEN: " + fen);
+
+        Board board = new Board();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != Board.BOARD_HEIGHT) throw new IllegalArgumentException("Invalid FEN: " + fen);
+        for (int i = 0; i < ranks.length; i++) {
+            int y = Board.BOARD_HEIGHT - i;
+            int x = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    x += c - '0';
+                    continue;
+                }
+                int type = PIECES.indexOf(Character.toLowerCase(c));
+                if (type < 0 || x > Board.BOARD_WIDTH) throw new IllegalArgumentException("Invalid FEN: " + fen);
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                Position pos = Position.of(x, y);
+                IChessPiece piece = AbstractChessPiece.fromPieceType(type, pos, color);
+                piece.setHasMoved(hasMoved(piece, fields[2]));
+                board.putAtPosition(pos, piece);
+                x++;
+            }
+            if (x != Board.BOARD_WIDTH + 1) throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        switch (fields[1]) {
+            case "w": board.setSideToMove(Color.WHITE); break;
+            case "b": board.setSideToMove(Color.BLACK); break;
+            default: throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        if (!fields[3].equals("-")) {
+            // the pawn which double stepped stands just past the target square
+            Position target = Position.fromChessNotation(fields[3]);
+            int forward = target.getY() == 3 ? 1 : -1;
+            board.setDoubleStepSquare(Position.of(target.getX(), target.getY() + forward).index());
+        }
+        return board;
+    }
+
+    /**
+     * Helper method: decide whether a piece should count as moved, given the
+     * castling rights.
+     */
+    private static boolean hasMoved(IChessPiece piece, String castling) {
+        Position pos = piece.getPosition();
+        boolean white = piece.getColor().isWhite();
+        int homeRank = white ? 1 : Board.BOARD_HEIGHT;
+        String kingside = white ? "K" : "k";
+        String queenside = white ? "Q" : "q";
+
+        switch (piece.getPieceType()) {
+            case BitBoard.PAWN:
+                return pos.getY() != (white ? 2 : Board.BOARD_HEIGHT - 1);
+            case BitBoard.KING:
+                return pos.getY() != homeRank || pos.getX() != 5
+                    || !(castling.contains(kingside) || castling.contains(queenside));
+            case BitBoard.ROOK:
+                if (pos.getY() != homeRank) return true;
+                if (pos.getX() == Board.BOARD_WIDTH) return !castling.contains(kingside);
+                if (pos.getX() == 1) return !castling.contains(queenside);
+                return true;
+            default:
+                return false;
+        }
+    }
+}
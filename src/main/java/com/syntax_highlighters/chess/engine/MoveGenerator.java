@@ -0,0 +1,349 @@
+package com.syntax_highlighters.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * Generates the legal moves of a player directly from the bitboards.
+ *
+ * Instead of trying every pseudo-legal move and checking whether it leaves the
+ * king in check, the generator finds the pieces giving check and the pinned
+ * pieces once, and restricts every piece to the squares that keep the king
+ * safe:
+ *  - in double check, only the king may move;
+ *  - in single check, other pieces must capture the checker or block the line
+ *    between it and the king;
+ *  - a pinned piece may only move along the line through the king and the
+ *    pinning piece;
+ *  - the king may not move to an attacked square, where the squares behind it
+ *    on a checking line count as attacked.
+ * Only en passant, which removes two pieces from a rank at once, is checked by
+ * looking at the resulting occupancy.
+ *
+ * The rules follow those of the pieces' own allPossibleMoves methods: pawns may
+ * double step until they have moved, en passant is possible right after an
+ * enemy pawn's double step (Board.getDoubleStepSquare), and castling requires an
+ * unmoved king on the e-file and an unmoved rook in the corner. A player
+ * without a king can make any pseudo-legal move.
+ *
+ * For the quiescence search the generator can also produce only the captures
+ * and promotions, skipping the quiet moves rather than filtering them out.
+ *
+ * Moves are generated as packed moves into a MoveList. A generator holds no
+ * state between calls, so one instance can be reused for every position of a
+ * search without allocating; it must not be shared between threads.
+ */
+public final class MoveGenerator {
+    private static final long LAST_RANKS = 0xFF000000000000FFL;
+
+    // the position being generated for, set up by init
+    private Board board;
+    private BitBoard bb;
+    private int us;
+    private int them;
+    private long targets;     // squares moves may end on
+    private long pushTargets; // squares pawn pushes may end on
+    private long unblocked;
+    private boolean capturesOnly;
+    private int kingSquare;   // -1 if the player has no king
+    private long checkers;
+    private long checkMask;   // squares non-king moves must end on
+    private long pinned;
+
+    /**
+     * Generate all legal moves of a player.
+     *
+     * @param board The board to generate moves on
+     * @param color The color of the player to move
+     * @param blocked A mask of squares no move may end on
+     * @param moves The list to add the moves to; it is not cleared first
+     */
+    public void generate(Board board, Color color, long blocked, MoveList moves) {
+        init(board, color, blocked, false);
+        generateMoves(moves);
+    }
+
+    /**
+     * Generate the legal captures and promotions of a player, including en
+     * passant.
+     *
+     * @param board The board to generate moves on
+     * @param color The color of the player to move
+     * @param blocked A mask of squares no move may end on
+     * @param moves The list to add the moves to; it is not cleared first
+     */
+    public void generateCaptures(Board board, Color color, long blocked, MoveList moves) {
+        init(board, color, blocked, true);
+        generateMoves(moves);
+    }
+
+    /**
+     * Helper method: generate the moves of the position set up by init.
+     */
+    private void generateMoves(MoveList moves) {
+        if (kingSquare >= 0) generateKingMoves(moves);
+        if (checkMask == 0) return; // double check: only the king may move
+
+        generatePawnMoves(moves);
+        for (int type = BitBoard.KNIGHT; type <= BitBoard.QUEEN; type++) {
+            long pieces = bb.pieces(us, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long to = Attacks.of(us, type, from, bb.occupied()) & targets & checkMask & pinMask(from);
+                addMoves(moves, from, to);
+            }
+        }
+        // kings of a player with several kings are not protected from check
+        long otherKings = bb.pieces(us, BitBoard.KING) & ~(kingSquare >= 0 ? 1L << kingSquare : 0L);
+        while (otherKings != 0) {
+            int from = Long.numberOfTrailingZeros(otherKings);
+            otherKings &= otherKings - 1;
+            addMoves(moves, from, Attacks.king(from) & targets & checkMask & pinMask(from));
+        }
+    }
+
+    /**
+     * Helper method: set up move generation for a player, finding checks and
+     * pins.
+     */
+    private void init(Board board, Color color, long blocked, boolean capturesOnly) {
+        this.board = board;
+        this.bb = board.getBitBoard();
+        this.us = BitBoard.colorIndex(color);
+        this.them = us ^ 1;
+        this.capturesOnly = capturesOnly;
+        this.unblocked = ~blocked;
+        if (capturesOnly) {
+            this.targets = bb.occupancy(them) & unblocked;
+            this.pushTargets = LAST_RANKS & unblocked;
+        }
+        else {
+            this.targets = ~bb.occupancy(us) & unblocked;
+            this.pushTargets = targets;
+        }
+
+        long kings = bb.pieces(us, BitBoard.KING);
+        if (kings == 0) {
+            kingSquare = -1;
+            checkers = 0L;
+            checkMask = ~0L;
+            pinned = 0L;
+            return;
+        }
+
+        kingSquare = Long.numberOfTrailingZeros(kings);
+        checkers = Attacks.attackers(bb, kingSquare, them, bb.occupied());
+        if (checkers == 0) checkMask = ~0L;
+        else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+        else checkMask = 0L;
+
+        // enemy sliders seeing the king through exactly one of our pieces
+        long rooks = bb.pieces(them, BitBoard.ROOK) | bb.pieces(them, BitBoard.QUEEN);
+        long bishops = bb.pieces(them, BitBoard.BISHOP) | bb.pieces(them, BitBoard.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, bb.occupancy(them)) & rooks)
+            | (Attacks.bishop(kingSquare, bb.occupancy(them)) & bishops);
+        long pins = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(kingSquare, sniper) & bb.occupied();
+            if (Long.bitCount(blockers) == 1) pins |= blockers & bb.occupancy(us);
+        }
+        pinned = pins;
+    }
+
+    /**
+     * Get all legal moves of a player.
+     *
+     * @param board The board to generate moves on
+     * @param color The color of the player to move
+     * @return A list of all legal moves
+     */
+    public static List<Move> legalMoves(Board board, Color color) {
+        return legalMoves(board, color, 0L);
+    }
+
+    /**
+     * Get all legal moves of a player that do not end on a blocked square.
+     *
+     * @param board The board to generate moves on
+     * @param color The color of the player to move
+     * @param blocked A mask of squares no move may end on
+     * @return A list of all legal moves
+     */
+    public static List<Move> legalMoves(Board board, Color color, long blocked) {
+        MoveList packed = new MoveList();
+        new MoveGenerator().generate(board, color, blocked, packed);
+        List<Move> moves = new ArrayList<>(packed.size());
+        for (int i = 0; i < packed.size(); i++) {
+            moves.add(PackedMove.toMove(packed.get(i), board));
+        }
+        return moves;
+    }
+
+    /**
+     * Check whether a player is in check.
+     *
+     * @param board The board to look at
+     * @param color The color of the player
+     * @return true if the player's king is attacked, false otherwise
+     */
+    public static boolean inCheck(Board board, Color color) {
+        BitBoard bb = board.getBitBoard();
+        int us = BitBoard.colorIndex(color);
+        long kings = bb.pieces(us, BitBoard.KING);
+        return kings != 0 && Attacks.isAttacked(bb, Long.numberOfTrailingZeros(kings), us ^ 1);
+    }
+
+    /**
+     * Helper method: get the squares a piece may move to without exposing the
+     * king, considering pins only.
+     */
+    private long pinMask(int square) {
+        if ((pinned & (1L << square)) == 0) return ~0L;
+        return Attacks.line(kingSquare, square);
+    }
+
+    private void generateKingMoves(MoveList moves) {
+        long occupiedWithoutKing = bb.occupied() & ~(1L << kingSquare);
+        long to = Attacks.king(kingSquare) & targets;
+        while (to != 0) {
+            int sq = Long.numberOfTrailingZeros(to);
+            to &= to - 1;
+            if (Attacks.attackers(bb, sq, them, occupiedWithoutKing) == 0) {
+                moves.add(PackedMove.of(kingSquare, sq, captureFlag(sq)));
+            }
+        }
+
+        if (checkers == 0 && !capturesOnly) generateCastling(moves);
+    }
+
+    private void generateCastling(MoveList moves) {
+        if (board.getAtSquare(kingSquare).hasMoved() || (kingSquare & 7) != 4) return; // must be on the e-file
+
+        // kingside: the squares between must be empty and unattacked
+        tryCastle(moves, PackedMove.KING_CASTLE, kingSquare + 3,
+                (1L << (kingSquare + 1)) | (1L << (kingSquare + 2)),
+                kingSquare + 1, kingSquare + 2);
+        // queenside: the square next to the rook need only be empty
+        tryCastle(moves, PackedMove.QUEEN_CASTLE, kingSquare - 4,
+                (1L << (kingSquare - 1)) | (1L << (kingSquare - 2)) | (1L << (kingSquare - 3)),
+                kingSquare - 1, kingSquare - 2);
+    }
+
+    /**
+     * Helper method: add a castling move if the rook and the squares between
+     * it and the king allow it.
+     */
+    private void tryCastle(MoveList moves, int flag, int rookSquare, long empty, int pass, int dest) {
+        if ((bb.occupied() & empty) != 0) return;
+        if ((targets & (1L << dest)) == 0) return;
+        if ((bb.pieces(us, BitBoard.ROOK) & (1L << rookSquare)) == 0) return;
+        if (board.getAtSquare(rookSquare).hasMoved()) return;
+        if (Attacks.isAttacked(bb, pass, them) || Attacks.isAttacked(bb, dest, them)) return;
+        moves.add(PackedMove.of(kingSquare, dest, flag));
+    }
+
+    private void generatePawnMoves(MoveList moves) {
+        int forward = us == BitBoard.WHITE ? 8 : -8;
+        long empty = ~bb.occupied();
+        long pawns = bb.pieces(us, BitBoard.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = targets & checkMask & pinMask(from);
+            long pushAllowed = pushTargets & checkMask & pinMask(from);
+
+            // pushes
+            int single = from + forward;
+            if (single >= 0 && single < 64 && (empty & (1L << single)) != 0) {
+                if ((pushAllowed & (1L << single)) != 0) addPawnMove(moves, from, single, false);
+                int twice = single + forward;
+                if (!board.getAtSquare(from).hasMoved() && twice >= 0 && twice < 64
+                        && (empty & pushAllowed & (1L << twice)) != 0) {
+                    if (twice < 8 || twice >= 56) addPawnMove(moves, from, twice, false);
+                    else moves.add(PackedMove.of(from, twice, PackedMove.DOUBLE_PAWN_PUSH));
+                }
+            }
+
+            // captures
+            long captures = Attacks.pawn(us, from) & bb.occupancy(them) & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(moves, from, to, true);
+            }
+        }
+
+        generateEnPassant(moves, forward);
+    }
+
+    private void generateEnPassant(MoveList moves, int forward) {
+        int victim = board.getDoubleStepSquare();
+        if (victim < 0) return;
+        if ((bb.pieces(them, BitBoard.PAWN) & (1L << victim)) == 0) return;
+        // only possible from our fifth rank
+        if ((victim >>> 3) != (us == BitBoard.WHITE ? 4 : 3)) return;
+
+        int to = victim + forward;
+        if ((unblocked & (1L << to)) == 0) return;
+        // capturing the pawn must resolve a check by it, or block one
+        if ((checkMask & ((1L << victim) | (1L << to))) == 0) return;
+
+        long capturers = Attacks.pawn(them, to) & bb.pieces(us, BitBoard.PAWN);
+        while (capturers != 0) {
+            int from = Long.numberOfTrailingZeros(capturers);
+            capturers &= capturers - 1;
+            if (kingSquare >= 0) {
+                // two pawns leave the rank at once, so look at the result
+                long occupied = (bb.occupied() & ~(1L << from) & ~(1L << victim)) | (1L << to);
+                long attackers = Attacks.attackers(bb, kingSquare, them, occupied) & ~(1L << victim);
+                if (attackers != 0) continue;
+            }
+            moves.add(PackedMove.of(from, to, PackedMove.EN_PASSANT));
+        }
+    }
+
+    /**
+     * Helper method: add a pawn move, or all four promotions if it reaches
+     * the last rank.
+     */
+    private void addPawnMove(MoveList moves, int from, int to, boolean capture) {
+        if (to < 8 || to >= 56) {
+            moves.add(PackedMove.promotion(from, to, BitBoard.QUEEN, capture));
+            moves.add(PackedMove.promotion(from, to, BitBoard.ROOK, capture));
+            moves.add(PackedMove.promotion(from, to, BitBoard.BISHOP, capture));
+            moves.add(PackedMove.promotion(from, to, BitBoard.KNIGHT, capture));
+        }
+        else {
+            moves.add(PackedMove.of(from, to, capture ? PackedMove.CAPTURE : PackedMove.QUIET));
+        }
+    }
+
+    /**
+     * Helper method: add a regular move to every square in the mask.
+     */
+    private void addMoves(MoveList moves, int from, long to) {
+        while (to != 0) {
+            int sq = Long.numberOfTrailingZeros(to);
+            to &= to - 1;
+            moves.add(PackedMove.of(from, sq, captureFlag(sq)));
+        }
+    }
+
+    /**
+     * Helper method: get the flag of a regular move to a square.
+     */
+    private int captureFlag(int square) {
+        return bb.isOccupied(square) ? PackedMove.CAPTURE : PackedMove.QUIET;
+    }
+}
@@ -0,0 +1,266 @@
+package com.syntax_highlighters.chess.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.game.AbstractGame;
+import com.syntax_highlighters.chess.game.BurningChess;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+/**
+ * Counts the leaf nodes of the move tree of a game to a given depth (perft).
+ *
+ * Since the number of positions reachable in a given number of moves is known
+ * for many positions, perft is the standard way to verify move generation: a
+ * single missing or extra move anywhere in the tree changes the count. Divide
+ * gives the count below each root move, which narrows down where the tree of
+ * a broken generator differs from the reference.
+ *
+ * It is also a measure of the raw speed of move generation and make/unmake.
+ * The tree can be counted on one thread, or split by root move across a
+ * ForkJoinPool. Moves are counted at the last ply without being made.
+ *
+ * A Perft works on its own copy of the game's board, and respects the squares
+ * the game blocks (like the burning tiles in BurningChess) throughout the tree.
+ * It must not be shared between threads.
+ *
+ * Run the main method to count the reference positions, or a given position.
+ */
+public final class Perft {
+    /**
+     * Positions with known node counts, taken from the Chess Programming Wiki.
+     */
+    public enum Reference {
+        START(Fen.START,
+                20, 400, 8902, 197281, 4865609),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48, 2039, 97862, 4085603),
+        POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14, 191, 2812, 43238, 674624),
+        POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6, 264, 9467, 422333),
+        POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44, 1486, 62379, 2103487),
+        POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46, 2079, 89890, 3894594);
+
+        public final String fen;
+        private final long[] nodes;
+
+        Reference(String fen, long... nodes) {
+            this.fen = fen;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Get the known node count at a depth.
+         *
+         * @param depth The depth, from 1 to maxDepth()
+         * @return The number of leaf nodes at that depth
+         */
+        public long nodes(int depth) {
+            return nodes[depth - 1];
+        }
+
+        public int maxDepth() {
+            return nodes.length;
+        }
+
+        /**
+         * Set up a regular game of chess in the position.
+         *
+         * @return A new game
+         */
+        public ChessGame game() {
+            Board board = Fen.parse(fen);
+            return ChessGame.setupTestBoard(board, board.getSideToMove());
+        }
+    }
+
+    private final Board board;
+    private final long blocked;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final List<MoveList> moveLists = new ArrayList<>();
+
+    /**
+     * Set up perft for the current position of a game.
+     *
+     * @param game The game to count the moves of; it is not modified
+     */
+    public Perft(AbstractGame game) {
+        this(game.getBoard().copy(), game.blockedSquares());
+    }
+
+    private Perft(Board board, long blocked) {
+        this.board = board;
+        this.blocked = blocked;
+    }
+
+    /**
+     * Count the leaf nodes of the move tree.
+     *
+     * @param depth The number of plies to look ahead, at least 1
+     * @return The number of positions reached after exactly depth plies
+     */
+    public long perft(int depth) {
+        return count(depth, 0);
+    }
+
+    /**
+     * Count the leaf nodes below each root move.
+     *
+     * @param depth The number of plies to look ahead, at least 1
+     * @return The count for each root move, keyed by the move in long
+     * algebraic notation, in the order the moves were generated
+     */
+    public Map<String, Long> divide(int depth) {
+        MoveList moves = generate(0);
+        Map<String, Long> ret = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            ret.put(PackedMove.toString(moves.get(i)), depth <= 1 ? 1 : count(depth - 1, 1));
+            board.unmakeMove();
+        }
+        return ret;
+    }
+
+    /**
+     * Count the leaf nodes of the move tree, counting the subtree of each root
+     * move as a separate task in a pool.
+     *
+     * @param game The game to count the moves of; it is not modified
+     * @param depth The number of plies to look ahead, at least 1
+     * @param pool The pool to run the tasks in
+     * @return The number of positions reached after exactly depth plies
+     */
+    public static long perft(AbstractGame game, int depth, ForkJoinPool pool) {
+        Board board = game.getBoard().copy();
+        long blocked = game.blockedSquares();
+        return pool.invoke(new RecursiveTask<Long>() {
+            @Override
+            protected Long compute() {
+                Perft root = new Perft(board, blocked);
+                if (depth <= 1) return root.perft(depth);
+
+                MoveList moves = root.generate(0);
+                List<RecursiveTask<Long>> tasks = new ArrayList<>(moves.size());
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    tasks.add(new RecursiveTask<Long>() {
+                        @Override
+                        protected Long compute() {
+                            Perft perft = new Perft(board.copy(), blocked);
+                            perft.board.makeMove(move);
+                            return perft.count(depth - 1, 1);
+                        }
+                    });
+                }
+                long nodes = 0;
+                for (RecursiveTask<Long> task : invokeAll(tasks)) {
+                    nodes += task.join();
+                }
+                return nodes;
+            }
+        });
+    }
+
+    /**
+     * Helper method: count the leaves below the current position.
+     */
+    private long count(int depth, int ply) {
+        MoveList moves = generate(ply);
+        if (depth <= 1) return depth == 1 ? moves.size() : 1;
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Helper method: generate the moves of the current position into the
+     * move list of a ply.
+     */
+    private MoveList generate(int ply) {
+        while (moveLists.size() <= ply) moveLists.add(new MoveList());
+        MoveList moves = moveLists.get(ply);
+        moves.clear();
+        generator.generate(board, board.getSideToMove(), blocked, moves);
+        return moves;
+    }
+
+    /**
+     * Set up a BurningChess game in a position, with some tiles burning.
+     *
+     * The tiles keep burning throughout the tree, as the game only changes
+     * them between turns. They should be empty, since burning a piece puts
+     * out all the fires.
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @param burning The burning tiles, like "d4"
+     * @return A new game
+     */
+    public static BurningChess burningGame(String fen, String... burning) {
+        Board board = Fen.parse(fen);
+        BurningChess game = BurningChess.setupTestBoard(board, board.getSideToMove());
+        for (String tile : burning) {
+            game.killTile(Position.fromChessNotation(tile));
+        }
+        return game;
+    }
+
+    /**
+     * Count the reference positions, or a given position, and print the node
+     * counts and speed.
+     *
+     * Usage: Perft [depth [fen]]. Without arguments, every reference position
+     * is counted to its deepest known depth, on one thread and on all cores,
+     * and checked against the known count.
+     *
+     * @param args The depth and the position to count
+     */
+    public static void main(String[] args) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (args.length > 0) {
+            int depth = Integer.parseInt(args[0]);
+            String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+            Board board = Fen.parse(fen);
+            ChessGame game = ChessGame.setupTestBoard(board, board.getSideToMove());
+            new Perft(game).divide(depth).forEach((move, nodes) -> System.out.println(move + ": " + nodes));
+            run("single", game, depth, -1, null);
+            run("parallel", game, depth, -1, pool);
+            return;
+        }
+
+        for (Reference ref : Reference.values()) {
+            int depth = ref.maxDepth();
+            run(ref + " single", ref.game(), depth, ref.nodes(depth), null);
+            run(ref + " parallel", ref.game(), depth, ref.nodes(depth), pool);
+        }
+    }
+
+    /**
+     * Helper method: count a position, and print the count and the speed.
+     */
+    private static void run(String name, AbstractGame game, int depth, long expected, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long nodes = pool == null ? new Perft(game).perft(depth) : perft(game, depth, pool);
+        long nanos = Math.max(1, System.nanoTime() - start);
+
+        String result = expected < 0 ? "" : nodes == expected ? " OK" : " FAILED, expected " + expected;
+        System.out.printf("%-20s depth %d: %,d nodes in %,d ms, %,d nps%s%n",
+                name, depth, nodes, nanos / 1000000, nodes * 1000000000L / nanos, result);
+    }
+}
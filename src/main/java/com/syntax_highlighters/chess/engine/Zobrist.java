@@ -0,0 +1,103 @@
+package com.syntax_highlighters.chess.engine;
+
+/**
+ * Random keys for Zobrist hashing of board states.
+ *
+ * A position is hashed by XORing together one key per piece (by color, type
+ * and square), plus a key if black is to move, a key for the combination of
+ * castling rights, and a key for the file of a possible en passant capture.
+ * Since XOR is its own inverse, the piece part of the hash can be updated
+ * incrementally as pieces are put on and removed from the board.
+ *
+ * The keys are generated from a fixed seed, so a given position always has the
+ * same hash, also between runs. Anything stored on disk and looked up by hash
+ * relies on this.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x2C0FFEE_D00D1EL;
+
+    private static final long[][][] PIECES = new long[2][BitBoard.PIECE_TYPES][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long SIDE;
+
+    static {
+        long[] state = {SEED};
+        for (int c = 0; c < 2; c++) {
+            for (int t = 0; t < BitBoard.PIECE_TYPES; t++) {
+                for (int sq = 0; sq < 64; sq++) {
+                    PIECES[c][t][sq] = next(state);
+                }
+            }
+        }
+
+        // one key per right; each combination is the XOR of its rights' keys
+        long[] rights = {next(state), next(state), next(state), next(state)};
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) CASTLING[mask] ^= rights[i];
+            }
+        }
+
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = next(state);
+        }
+        SIDE = next(state);
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Get the key of a piece on a square.
+     *
+     * @param color The color index of the piece
+     * @param type The piece type
+     * @param square The square the piece stands on
+     * @return The key to XOR into the hash
+     */
+    public static long piece(int color, int type, int square) {
+        return PIECES[color][type][square];
+    }
+
+    /**
+     * Get the key of a set of castling rights.
+     *
+     * @param rights The castling rights, as a combination of the castling
+     * flags in Board
+     * @return The key to XOR into the hash
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Get the key of an en passant file.
+     *
+     * @param file The file a pawn can be captured en passant on, 0 (a) to 7 (h)
+     * @return The key to XOR into the hash
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT[file];
+    }
+
+    /**
+     * Get the key XORed into the hash when black is to move.
+     *
+     * @return The key to XOR into the hash
+     */
+    public static long side() {
+        return SIDE;
+    }
+
+    /**
+     * Helper method: advance a xorshift64* generator.
+     */
+    private static long next(long[] state) {
+        long x = state[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -2,15 +2,15 @@ package com.syntax_highlighters.chess.game;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import com.syntax_highlighters.chess.AsyncPlayer;
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.Position;
-import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
-import com.syntax_highlighters.chess.chesspiece.ChessPieceQueen;
 import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
 import com.syntax_highlighters.chess.move.Move;
 
 /**
@@ -89,7 +89,7 @@ public abstract class AbstractGame {
         m.DoMove(board);
         board.setLastMove(m);
         addMoveToHistory(m);
-        nextPlayerColor = nextPlayerColor.opponentColor();
+        setNextPlayerColor(nextPlayerColor.opponentColor());
     }
 
     /**
@@ -112,7 +112,7 @@ public abstract class AbstractGame {
         Move lastmove = moveHistory.size() > 0 ? moveHistory.get(i - 1) : null;
         board.setLastMove(lastmove);
         
-        nextPlayerColor = nextPlayerColor.opponentColor();
+        setNextPlayerColor(nextPlayerColor.opponentColor());
         lastMove.UndoMove(board);
     }
 
@@ -164,6 +164,44 @@ public abstract class AbstractGame {
         return null;
     }
 
+    /**
+     * Request a move from the next player if it is an AI, without performing
+     * it.
+     *
+     * The move is found on another thread. Perform it with
+     * PerformAIMove(Move) once the future completes, on the thread the game
+     * is used from.
+     *
+     * NOTE: Name is misleading, since any async player is supported (not just
+     * AI)
+     *
+     * @return A future completing with the move, or null if the next player
+     * is not an AI or found no move
+     */
+    public CompletableFuture<Move> RequestAIMove() {
+        if (!nextPlayerIsAI()) return CompletableFuture.completedFuture(null);
+        AsyncPlayer ai = nextPlayerColor.isWhite() ? whiteAI : blackAI;
+        return ai.requestMove(this);
+    }
+
+    /**
+     * Perform a move found by RequestAIMove.
+     *
+     * @param move The move found, or null if none was found
+     */
+    public void PerformAIMove(Move move) {
+        if (move != null && !gameOver) this.performMove(move);
+    }
+
+    /**
+     * Cancel the moves requested from the AI players, telling them to stop
+     * thinking.
+     */
+    public void CancelAIMove() {
+        if (whiteAI != null) whiteAI.cancel();
+        if (blackAI != null) blackAI.cancel();
+    }
+
     /**
      * Check whether the next player is AI player or human player.
      *
@@ -225,6 +263,18 @@ public abstract class AbstractGame {
         return nextPlayerColor;
     }
 
+    /**
+     * Set whose turn it is next.
+     *
+     * Also updates the side to move of the board, which is part of its hash.
+     *
+     * @param color The color of the player to move next
+     */
+    void setNextPlayerColor(Color color) {
+        nextPlayerColor = color;
+        board.setSideToMove(color);
+    }
+
     /**
      * Checks if game is over.
      *
@@ -307,32 +357,7 @@ public abstract class AbstractGame {
      * @return The score of the board for the given player.
      */
     public int evaluateScore(Color color) {
-        // Check if we are in an "end state".
-        boolean endstate = false;
-        boolean whiteQueenExists = false;
-        boolean blackQueenExists = false;
-        for (IChessPiece p : board.getAllPieces()) {
-            if (p instanceof ChessPieceQueen) {
-                if (p.getColor().isWhite()) whiteQueenExists = true;
-                else blackQueenExists = true;
-            }
-        }
-
-        // Endstate is when both queens are dead.
-        if (!whiteQueenExists && !blackQueenExists) endstate = true;
-
-        int score = ((int)(Math.random()*10)) - 5;
-        for (IChessPiece p : board.getAllPieces()) {
-            int pscore;
-            if (endstate && p instanceof ChessPieceKing) {
-                pscore = ((ChessPieceKing)p).getEndgamePositionalScore();
-            }
-            else pscore = p.getPositionalScore();
-
-            if (p.getColor() == color) score += pscore;
-            else score -= pscore;
-        }
-        return score;
+        return board.evaluate(color);
     }
 
     /**
@@ -345,14 +370,23 @@ public abstract class AbstractGame {
         return moveHistory.stream().map(Move::copy).collect(Collectors.toList());
     }
 
+    /**
+     * Get the squares no piece may move to during this turn.
+     *
+     * Used by game modes which make parts of the board unreachable. The
+     * regular game has no such squares.
+     *
+     * @return A mask of the blocked squares, indexed like the bitboards
+     */
+    public long blockedSquares() {
+        return 0L;
+    }
+
     /**
      * Returns a list of all possible moves for the next player.
      * @return A list of all possible moves for the next player.
      */
 	public List<Move> getPossibleMoves() {
-		return this.getBoard().getAllPieces().stream()
-            .filter(p -> p.getColor() == nextPlayerColor)
-            .flatMap(p -> p.allPossibleMoves(board).stream())
-            .collect(Collectors.toList());
+		return MoveGenerator.legalMoves(board, nextPlayerColor, blockedSquares());
 	}
 }
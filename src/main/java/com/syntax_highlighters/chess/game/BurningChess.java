@@ -7,6 +7,7 @@ import com.syntax_highlighters.chess.Position;
 import com.syntax_highlighters.chess.ai.AiDifficulty;
 import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
 import com.syntax_highlighters.chess.chesspiece.*;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
 import com.syntax_highlighters.chess.move.Move;
 
 import java.util.ArrayList;
@@ -36,11 +37,11 @@ public class BurningChess extends AbstractGame{
     public BurningChess(AiDifficulty whiteAi, AiDifficulty blackAi) {
         if (whiteAi != null) {
             MiniMaxAIPlayer ai = new MiniMaxAIPlayer(whiteAi);
-            this.whiteAI = new AsyncPlayer(ai);
+            this.whiteAI = new AsyncPlayer(ai, ai.GetExecutor());
         }
         if (blackAi != null) {
             MiniMaxAIPlayer ai = new MiniMaxAIPlayer(blackAi);
-            this.blackAI = new AsyncPlayer(ai);
+            this.blackAI = new AsyncPlayer(ai, ai.GetExecutor());
         }
 
         this.board = new Board();
@@ -56,7 +57,7 @@ public class BurningChess extends AbstractGame{
      */
     private BurningChess(Board board, Color nextPlayerColor) {
         this.board = board;
-        this.nextPlayerColor = nextPlayerColor;
+        setNextPlayerColor(nextPlayerColor);
     }
 
     /**
@@ -177,11 +178,21 @@ public class BurningChess extends AbstractGame{
      */
     @Override
     public List<Move> allPossibleMoves() {
-        return getPieces().stream()
-                .filter(p -> p.getColor() == nextPlayerColor())
-                .flatMap(p -> p.allPossibleMoves(getBoard()).stream())
-                .filter(m -> !unreachablePos.contains(m.getPosition()))
-                .collect(Collectors.toList());
+        return MoveGenerator.legalMoves(board, nextPlayerColor, blockedSquares());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The unreachable (burning) tiles are blocked.
+     */
+    @Override
+    public long blockedSquares() {
+        long blocked = 0L;
+        for (Position p : unreachablePos) {
+            blocked |= 1L << p.index();
+        }
+        return blocked;
     }
 
     /**
@@ -219,9 +230,7 @@ public class BurningChess extends AbstractGame{
                 || board.checkMate(Color.WHITE)
                 || board.checkMate(Color.BLACK)
                 || insufficientMaterial()
-                || board.getAllPieces().stream()
-                .filter(p -> p.getColor() == nextPlayerColor)
-                .noneMatch(p -> p.allPossibleMoves(board).size() > 0);
+                || MoveGenerator.legalMoves(board, nextPlayerColor).isEmpty();
     }
 
     /**
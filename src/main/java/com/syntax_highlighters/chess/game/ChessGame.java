@@ -15,6 +15,7 @@ import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.ai.IAiPlayer;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
 import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
 import com.syntax_highlighters.chess.move.Move;
 
 /**
@@ -35,11 +36,11 @@ public class ChessGame extends AbstractGame {
     public ChessGame(AiDifficulty whiteAi, AiDifficulty blackAi) {
         if (whiteAi != null) {
             IAiPlayer ai = new MiniMaxAIPlayer(whiteAi);
-            this.whiteAI = new AsyncPlayer(ai);
+            this.whiteAI = new AsyncPlayer(ai, ai.GetExecutor());
         }
         if (blackAi != null) {
             IAiPlayer ai = new MiniMaxAIPlayer(blackAi);
-            this.blackAI = new AsyncPlayer(ai);
+            this.blackAI = new AsyncPlayer(ai, ai.GetExecutor());
         }
 
         this.board = new Board();
@@ -52,7 +53,7 @@ public class ChessGame extends AbstractGame {
      */
     private ChessGame(Board board, Color nextPlayerColor) {
         this.board = board;
-        this.nextPlayerColor = nextPlayerColor;
+        setNextPlayerColor(nextPlayerColor);
     }
 
     /**
@@ -80,8 +81,7 @@ public class ChessGame extends AbstractGame {
                 || board.checkMate(Color.WHITE)
                 || board.checkMate(Color.BLACK)
                 || insufficientMaterial()
-                || board.getAllPieces(nextPlayerColor).stream()
-                .noneMatch(p -> p.allPossibleMoves(board).size() > 0);
+                || allPossibleMoves().isEmpty();
     }
 
     /**
@@ -132,9 +132,7 @@ public class ChessGame extends AbstractGame {
      */
     @Override
     public List<Move> allPossibleMoves() {
-        return board.getAllPieces(nextPlayerColor).stream()
-            .flatMap(p -> p.allPossibleMoves(getBoard()).stream())
-            .collect(Collectors.toList());
+        return MoveGenerator.legalMoves(board, nextPlayerColor);
     }
     
     /**
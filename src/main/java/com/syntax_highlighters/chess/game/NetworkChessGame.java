@@ -1,5 +1,7 @@
 package com.syntax_highlighters.chess.game;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.syntax_highlighters.chess.AsyncPlayer;
 import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.move.Move;
@@ -63,6 +65,34 @@ public class NetworkChessGame extends ChessGame {
         return null;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Move> RequestAIMove() {
+        if (!nextPlayerIsAI() || gameOver) return CompletableFuture.completedFuture(null);
+        return opponentAsync.requestMove(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Ends the game if no move arrived because the connection was lost.
+     */
+    @Override
+    public void PerformAIMove(Move move) {
+        if (move != null) super.PerformAIMove(move);
+        else if (opponent.GetStatus() != ConnectionStatus.Connected) forceGameEnd();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void CancelAIMove() {
+        opponentAsync.cancel();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -247,7 +247,7 @@ public class SjadamGame extends AbstractGame {
             // put old piece position in list of jumped positions
             jumpedFromPositions.add(move.getOldPosition());
         }
-        nextPlayerColor = col; // set next player color to the correct color
+        setNextPlayerColor(col); // set next player color to the correct color
     }
 
     /**
@@ -292,7 +292,7 @@ public class SjadamGame extends AbstractGame {
      * Used by UI as the "end turn" callback.
      */
     public void endTurn() {
-        nextPlayerColor = nextPlayerColor.opponentColor();
+        setNextPlayerColor(nextPlayerColor.opponentColor());
         jumpedFromPositions = new ArrayList<>(); // clear jumped positions
     }
     
@@ -60,7 +60,7 @@ public class BoardGroup extends Group {
         for (int x = 0; x < Board.BOARD_WIDTH; ++x) {
             for (int y = 0; y < Board.BOARD_HEIGHT; ++y) {
                 boolean isBlack = (x + y) % 2 == 0;
-                ChessTileActor actor = new ChessTileActor(isBlack, new Position(x + 1, y + 1), assetManager, this);
+                ChessTileActor actor = new ChessTileActor(isBlack, Position.of(x + 1, y + 1), assetManager, this);
                 actor.addListener(new ClickListener() {
                     @Override
                     public void touchUp(InputEvent event, float x, float y, int pointer, int button) {
@@ -189,7 +189,7 @@ public class BoardGroup extends Group {
         float tileWidth = pieceGroup.getWidth() / Board.BOARD_WIDTH;
         float tileHeight = pieceGroup.getHeight() / Board.BOARD_HEIGHT;
 
-        Position estimated = new Position((int) (x / tileWidth) + 1, (int) (y / tileHeight) + 1);
+        Position estimated = Position.of((int) (x / tileWidth) + 1, (int) (y / tileHeight) + 1);
 
         final List<Move> moves = game.getMoves(selected.getPiece().getPosition(), estimated);
         
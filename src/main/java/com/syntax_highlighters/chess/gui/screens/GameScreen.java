@@ -1,6 +1,8 @@
 package com.syntax_highlighters.chess.gui.screens;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
@@ -15,6 +17,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
+import com.syntax_highlighters.chess.AsyncPlayer;
 import com.syntax_highlighters.chess.game.AbstractGame;
 import com.syntax_highlighters.chess.account.Account;
 import com.syntax_highlighters.chess.game.BurningChess;
@@ -25,7 +28,6 @@ import com.syntax_highlighters.chess.PlayerAttributes;
 import com.syntax_highlighters.chess.move.PromotionMove;
 import com.syntax_highlighters.chess.game.SjadamGame;
 import com.syntax_highlighters.chess.ai.AiDifficulty;
-import com.syntax_highlighters.chess.ai.IAiPlayer;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
 import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
 import com.syntax_highlighters.chess.gui.actors.BoardGroup;
@@ -38,12 +40,15 @@ import com.syntax_highlighters.chess.gui.actors.Text;
  * Game main screen.
  */
 public class GameScreen extends AbstractScreen {
+    private static final int MAX_HINT_MOVES = 4;
+
     final AssetManager assetManager;
 
     AbstractGame game;
     //private final UiBoard board;
     final BoardGroup board;
     final Text turnText;
+    final Text hintText;
     final Button giveUp;
     private final Button getHelp;
     private final Button showResults;
@@ -65,6 +70,16 @@ public class GameScreen extends AbstractScreen {
     private final LibgdxChessGame chessGame;
     private Button endTurnButton;
 
+    // the move requested from the AI, if it is thinking
+    private CompletableFuture<Move> aiMove = null;
+    // suggests simple moves to the player, and the line expected to follow
+    private final MiniMaxAIPlayer hintAI = new MiniMaxAIPlayer(AiDifficulty.ShortSighted, 1);
+    private final AsyncPlayer hintPlayer = new AsyncPlayer(hintAI, hintAI.GetExecutor());
+    // the hint requested, if the hint AI is thinking
+    private CompletableFuture<Move> hint = null;
+    // the number of moves played when the shown hint was given, or -1
+    private int hintTurn = -1;
+
     /**
      * Set up a new gamescreen using a game instance and default settings.
      * @param chessGame current ChessGame.
@@ -171,6 +186,10 @@ public class GameScreen extends AbstractScreen {
         stage.addActor(turnText);
         turnText.setText(this.game.nextPlayerColor().isWhite() ? "White's turn" : "Black's turn");
 
+        hintText = new Text(font);
+        hintText.setColor(0, 0, 0, 1);
+        stage.addActor(hintText);
+
 
 
         getHelp = new Button("Get hint", assetManager);
@@ -180,11 +199,13 @@ public class GameScreen extends AbstractScreen {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 super.clicked(event, x, y);
-                if (!isGameOver && !game.nextPlayerIsAI()) {
-                    // Suggest a simple move to the player.
-                    IAiPlayer ai = new MiniMaxAIPlayer(AiDifficulty.ShortSighted);
-                    Move move = ai.GetMove(game);
-                    board.showSuggestion(move);
+                if (!isGameOver && !game.nextPlayerIsAI() && hint == null) {
+                    // The hint AI searches a copy, since the player may
+                    // move while it thinks; it calls back when done.
+                    int turn = game.getMoveHistory().size();
+                    CompletableFuture<Move> requested = hintPlayer.requestMove(game.copy());
+                    hint = requested;
+                    requested.whenComplete((m, ex) -> Gdx.app.postRunnable(() -> hintFound(requested, turn, ex == null ? m : null)));
                 }
             }
         });
@@ -193,7 +214,10 @@ public class GameScreen extends AbstractScreen {
         Button.Builder giveUpButtonBuilder;
         if (player1 == null && ai1 != null && player2 == null && ai2 != null)
             giveUpButtonBuilder = new Button.Builder("Leave match", assetManager)
-                .callback(() -> chessGame.setScreen(new MainMenuScreen(chessGame)));
+                .callback(() -> {
+                    game.CancelAIMove();
+                    chessGame.setScreen(new MainMenuScreen(chessGame));
+                });
         else
             giveUpButtonBuilder = new Button.Builder("Give up", assetManager)
                 .callback(() -> new ConfirmationOverlay.Builder(assetManager)
@@ -265,6 +289,7 @@ public class GameScreen extends AbstractScreen {
     void gameOver(int winner) {
         this.winner = winner;
         isGameOver = true;
+        game.CancelAIMove();
         board.unselectSelected();
         if (!game.isGameOver()) {
             game.forceGameEnd();
@@ -331,24 +356,67 @@ public class GameScreen extends AbstractScreen {
             return;
         }
 
-        // Do an AI turn if needed
-        if (game.nextPlayerIsAI()) {
-            Move m = game.PerformAIMoveAsync();
-            // If the AI performed a promotion move, we need to add the
-            // piece that was promoted to as an actor to the BoardGroup.
-            if (m != null) {
-                if (m instanceof PromotionMove) {
-                    IChessPiece promoted = game.getBoard().getAtPosition(m.getPosition());
-                    board.addPiece(promoted);
-                }
-            }
+        // Let the AI think if it is its turn; it calls back when done
+        if (game.nextPlayerIsAI() && aiMove == null) {
+            CompletableFuture<Move> requested = game.RequestAIMove();
+            aiMove = requested;
+            requested.whenComplete((m, ex) -> Gdx.app.postRunnable(() -> aiMoveFound(requested, ex == null ? m : null)));
         }
 
         setTurnText();
+        // a hint is only good for the turn it was given in
+        if (hintTurn != -1 && hintTurn != game.getMoveHistory().size()) {
+            setHintText(Collections.emptyList());
+            hintTurn = -1;
+        }
 
         super.render(delta);
     }
 
+    /**
+     * Helper method: perform the move found by the AI, on the render thread.
+     * If the AI failed, the move is null, and it is asked again.
+     *
+     * If the AI performed a promotion move, the piece promoted to is added as
+     * an actor to the BoardGroup.
+     */
+    private void aiMoveFound(CompletableFuture<Move> requested, Move m) {
+        if (requested != aiMove) return; // cancelled meanwhile
+        aiMove = null;
+        if (isGameOver) return;
+
+        game.PerformAIMove(m);
+        if (m instanceof PromotionMove) {
+            IChessPiece promoted = game.getBoard().getAtPosition(m.getPosition());
+            board.addPiece(promoted);
+        }
+    }
+
+    /**
+     * Helper method: show the hint found by the hint AI, on the render
+     * thread, unless a move has been played since it was requested.
+     */
+    private void hintFound(CompletableFuture<Move> requested, int turn, Move m) {
+        if (requested != hint) return; // cancelled meanwhile
+        hint = null;
+        if (m == null || isGameOver || turn != game.getMoveHistory().size()) return;
+
+        board.showSuggestion(m);
+        setHintText(hintAI.GetPrincipalVariation());
+        hintTurn = turn;
+    }
+
+    /**
+     * Stop the AI and the hint AI from thinking when the screen is left.
+     */
+    @Override
+    public void hide() {
+        game.CancelAIMove();
+        aiMove = null;
+        hintPlayer.cancel();
+        hint = null;
+    }
+
     /**
      * Helper method: set turn text according to whose turn it is, or to who the
      * winner is if the game is over, and center text.
@@ -373,6 +441,21 @@ public class GameScreen extends AbstractScreen {
         turnText.setCenter(WORLDWIDTH / 4.f * 3.f, WORLDHEIGHT - 20.f);
     }
 
+    /**
+     * Show the line of play suggested by a hint above the hint button.
+     *
+     * @param line The suggested move and the moves expected to follow it, or
+     * an empty list to clear the hint
+     */
+    private void setHintText(java.util.List<Move> line) {
+        StringBuilder text = new StringBuilder();
+        for (Move move : line.subList(0, Math.min(line.size(), MAX_HINT_MOVES))) {
+            text.append(text.length() == 0 ? "Hint: " : " ").append(move);
+        }
+        hintText.setText(text.toString());
+        hintText.setCenter(WORLDWIDTH / 4.f * 3.f, 120.f);
+    }
+
     /**
      * Resize event.
      * <p>
@@ -170,7 +170,7 @@ public class CastlingMove extends Move {
         int y1 = ois.readInt();
         int x2 = ois.readInt();
         int y2 = ois.readInt();        
-        rookOldPos = new Position(x1, y1);
-        rookNewPos = new Position(x2, y2);
+        rookOldPos = Position.of(x1, y1);
+        rookNewPos = Position.of(x2, y2);
     }
 }
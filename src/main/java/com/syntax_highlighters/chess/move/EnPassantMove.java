@@ -124,6 +124,6 @@ public class EnPassantMove extends Move {
         super.readObject(ois);
         int x = ois.readInt();
         int y = ois.readInt();       
-        passantTakesPos = new Position(x, y);
+        passantTakesPos = Position.of(x, y);
     }
 }
@@ -309,8 +309,8 @@ public class Move implements Serializable {
         int y1 = ois.readInt();
         int x2 = ois.readInt();
         int y2 = ois.readInt();        
-        oldPos = new Position(x1, y1);
-        newPos = new Position(x2, y2);
+        oldPos = Position.of(x1, y1);
+        newPos = Position.of(x2, y2);
 
         hadMoved = ois.readBoolean();
         pieceString = ois.readUTF();
@@ -0,0 +1,103 @@
+package com.syntax_highlighters.chess.move;
+
+/**
+ * A list of packed moves backed by a preallocated int array.
+ *
+ * Meant to be allocated once and reused, for instance one list per search ply,
+ * so that generating moves does not allocate. Each move has an int score next
+ * to it, which move ordering can use.
+ *
+ * @see PackedMove
+ */
+public final class MoveList {
+    // no legal chess position has more than 218 moves
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    private int size = 0;
+
+    /**
+     * Add a move to the end of the list, with a score of 0.
+     *
+     * @param move The packed move
+     */
+    public void add(int move) {
+        moves[size] = move;
+        scores[size] = 0;
+        size++;
+    }
+
+    /**
+     * Get a move.
+     *
+     * @param i The index of the move
+     * @return The packed move
+     */
+    public int get(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Get the score of a move.
+     *
+     * @param i The index of the move
+     * @return The score last set for the move
+     */
+    public int score(int i) {
+        return scores[i];
+    }
+
+    /**
+     * Set the score of a move.
+     *
+     * @param i The index of the move
+     * @param score The new score
+     */
+    public void setScore(int i, int score) {
+        scores[i] = score;
+    }
+
+    /**
+     * Swap two moves and their scores.
+     *
+     * @param i The index of one move
+     * @param j The index of the other move
+     */
+    public void swap(int i, int j) {
+        int m = moves[i];
+        moves[i] = moves[j];
+        moves[j] = m;
+        int s = scores[i];
+        scores[i] = scores[j];
+        scores[j] = s;
+    }
+
+    /**
+     * Check whether the list holds a move.
+     *
+     * @param move The packed move to look for
+     * @return true if the move is in the list, false otherwise
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all moves, keeping the backing arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.syntax_highlighters.chess.move;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.AbstractChessPiece;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceRook;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.BitBoard;
+
+/**
+ * Moves packed into the 16 low bits of an int.
+ *
+ * Unlike Move, a packed move is a plain value: it holds no references and no
+ * undo state, and can be stored in primitive arrays without allocating. The
+ * search works on packed moves; the Move classes are still used by the GUI and
+ * the network layer, and can be converted to and from.
+ *
+ * Layout:
+ *  - bits 0-5: the square moved to
+ *  - bits 6-11: the square moved from
+ *  - bits 12-15: flags, see the constants below
+ *
+ * Squares are numbered as in BitBoard. The value 0 (a1 to a1) is never a legal
+ * move, and is used as NONE.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    // Flags. Bit 2 marks captures and bit 3 promotions; for promotions, the
+    // two low bits give the piece: 0 knight, 1 bishop, 2 rook, 3 queen.
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private PackedMove() {}
+
+    /**
+     * Pack a move.
+     *
+     * @param from The square moved from
+     * @param to The square moved to
+     * @param flags The flags of the move
+     * @return The packed move
+     */
+    public static int of(int from, int to, int flags) {
+        return to | (from << 6) | (flags << 12);
+    }
+
+    /**
+     * Pack a promotion.
+     *
+     * @param from The square moved from
+     * @param to The square moved to
+     * @param pieceType The piece type to promote to (BitBoard.KNIGHT to
+     * BitBoard.QUEEN)
+     * @param capture Whether the promotion captures a piece
+     * @return The packed move
+     */
+    public static int promotion(int from, int to, int pieceType, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (pieceType - BitBoard.KNIGHT);
+        return of(from, to, flags);
+    }
+
+    public static int from(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int to(int move) {
+        return move & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * Get the piece type a promotion promotes to.
+     *
+     * @param move A packed promotion
+     * @return The piece type, BitBoard.KNIGHT to BitBoard.QUEEN
+     */
+    public static int promotionType(int move) {
+        return BitBoard.KNIGHT + (flags(move) & 3);
+    }
+
+    /**
+     * Convert a packed move to a Move object.
+     *
+     * The move must be legal on the given board, which must be in the state
+     * before the move.
+     *
+     * @param move The packed move
+     * @param board The board the move will be performed on
+     * @return A Move, CastlingMove, EnPassantMove or PromotionMove
+     */
+    public static Move toMove(int move, Board board) {
+        int from = from(move);
+        int to = to(move);
+        Position fromPos = Position.fromIndex(from);
+        Position toPos = Position.fromIndex(to);
+
+        switch (flags(move)) {
+            case KING_CASTLE:
+                return new CastlingMove((ChessPieceKing) board.getAtSquare(from),
+                        (ChessPieceRook) board.getAtSquare(from + 3));
+            case QUEEN_CASTLE:
+                return new CastlingMove((ChessPieceKing) board.getAtSquare(from),
+                        (ChessPieceRook) board.getAtSquare(from - 4));
+            case EN_PASSANT:
+                // the captured pawn stands beside the capturing one
+                IChessPiece taken = board.getAtSquare((from & ~7) | (to & 7));
+                return new EnPassantMove(fromPos, toPos, board, taken);
+            default:
+                break;
+        }
+
+        if (isPromotion(move)) {
+            Color c = board.getAtSquare(from).getColor();
+            return new PromotionMove(fromPos, toPos, board, AbstractChessPiece.fromPieceType(promotionType(move), toPos, c));
+        }
+        return new Move(fromPos, toPos, board);
+    }
+
+    /**
+     * Pack a Move object.
+     *
+     * @param m The move
+     * @param board The board the move will be performed on, in the state before
+     * the move
+     * @return The packed move
+     */
+    public static int fromMove(Move m, Board board) {
+        int from = m.getOldPosition().index();
+        int to = m.getPosition().index();
+
+        if (m instanceof CastlingMove) {
+            return of(from, to, to > from ? KING_CASTLE : QUEEN_CASTLE);
+        }
+        if (m instanceof EnPassantMove) {
+            return of(from, to, EN_PASSANT);
+        }
+
+        boolean capture = board.getBitBoard().isOccupied(to);
+        if (m instanceof PromotionMove) {
+            return promotion(from, to, ((PromotionMove) m).getPromotionType(), capture);
+        }
+        if (capture) return of(from, to, CAPTURE);
+
+        boolean pawn = (board.getBitBoard().pieces(BitBoard.PAWN) & (1L << from)) != 0;
+        if (pawn && Math.abs(to - from) == 16) return of(from, to, DOUBLE_PAWN_PUSH);
+        return of(from, to, QUIET);
+    }
+
+    /**
+     * Get the move in long algebraic notation, like "e2e4" or "e7e8q".
+     *
+     * @param move The packed move
+     * @return The move as a string
+     */
+    public static String toString(int move) {
+        String s = Position.fromIndex(from(move)).toChessNotation()
+            + Position.fromIndex(to(move)).toChessNotation();
+        if (isPromotion(move)) s += "nbrq".charAt(promotionType(move) - BitBoard.KNIGHT);
+        return s;
+    }
+}
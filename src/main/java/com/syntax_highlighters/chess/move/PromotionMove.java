@@ -9,6 +9,7 @@ import com.syntax_highlighters.chess.Position;
 import com.syntax_highlighters.chess.chesspiece.AbstractChessPiece;
 import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.BitBoard;
 
 /**
  * Promotion move includes info about pawns moving to the 1st or eigth rank, and
@@ -51,6 +52,20 @@ public class PromotionMove extends Move {
         color = promoteToPiece.getColor();
     }
 
+    /**
+     * Get the type of the piece the pawn is promoted to.
+     *
+     * @return The piece type, as defined in BitBoard
+     */
+    public int getPromotionType() {
+        switch (promoteToStringrep) {
+            case "N": return BitBoard.KNIGHT;
+            case "B": return BitBoard.BISHOP;
+            case "R": return BitBoard.ROOK;
+            default:  return BitBoard.QUEEN;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
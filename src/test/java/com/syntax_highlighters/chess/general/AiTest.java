@@ -1,6 +1,8 @@
 package com.syntax_highlighters.chess.general;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
 
 import com.syntax_highlighters.chess.Board;
 import com.syntax_highlighters.chess.game.ChessGame;
@@ -16,6 +18,13 @@ import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.ai.IAiPlayer;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
 import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.SearchBudget;
+import com.syntax_highlighters.chess.ai.SearchReport;
+import com.syntax_highlighters.chess.ai.TranspositionTable;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.move.Move;
 
 import org.junit.jupiter.api.Test;
 
@@ -25,6 +34,8 @@ import static org.junit.jupiter.api.Assertions.*;
  * Tests pertaining to the behavior of the AI.
  */
 class AiTest {
+    private static final int MAX_DEPTH = 60;
+
     /**
      * Check that when given the choice of taking a king or taking a pawn,
      * the AI will take the queen.
@@ -37,9 +48,11 @@ class AiTest {
         pieces.add(new ChessPiecePawn(new Position(1, 3), Color.BLACK));
         pieces.add(new ChessPiecePawn(new Position(2, 2), Color.WHITE));
 
-        // Add kings so the AI doesn't think it's Game Over.
+        // Add kings so the AI doesn't think it's Game Over. The white king
+        // stops the pawn, which could otherwise promote after the queen is
+        // taken and make both captures equally bad.
         pieces.add(new ChessPieceKing(new Position(8, 8), Color.BLACK));
-        pieces.add(new ChessPieceKing(new Position(8, 1), Color.WHITE));
+        pieces.add(new ChessPieceKing(new Position(2, 1), Color.WHITE));
 
         Board board = new Board(pieces);
         ChessGame game = ChessGame.setupTestBoard(board, Color.WHITE);
@@ -218,4 +231,197 @@ class AiTest {
 
         assertTrue(rookPos != new Position(5,7));
     }
+
+    /**
+     * Check that every difficulty reports a search budget, and that harder
+     * difficulties may think for longer.
+     */
+    @Test
+    void difficultiesReportBudgets() {
+        SearchBudget easy = new MiniMaxAIPlayer(AiDifficulty.Easy).GetBudget();
+        SearchBudget medium = new MiniMaxAIPlayer(AiDifficulty.Medium).GetBudget();
+        SearchBudget hard = new MiniMaxAIPlayer(AiDifficulty.Hard).GetBudget();
+
+        assertTrue(easy.getTimeMillis() <= medium.getTimeMillis());
+        assertTrue(medium.getTimeMillis() <= hard.getTimeMillis());
+        assertTrue(easy.getMaxDepth() < hard.getMaxDepth());
+
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetDifficulty(AiDifficulty.Easy);
+        assertEquals(easy.toString(), ai.GetBudget().toString());
+    }
+
+    /**
+     * Check that the AI stops on its time budget in a complicated position,
+     * and still plays a legal move.
+     */
+    @Test
+    void stopsOnTimeBudget() {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        // only the time can stop it before the deepest search
+        ai.SetBudget(new SearchBudget(MAX_DEPTH, 100, SearchBudget.UNLIMITED));
+
+        // with a generous margin for slow machines, but failing rather than
+        // hanging if the budget is ignored
+        Move move = assertTimeoutPreemptively(Duration.ofMillis(2000), () -> ai.GetMove(game),
+            "The AI ignored its time budget");
+        int depth = ai.GetSearchReport().getDepth();
+        long millis = ai.GetSearchReport().getElapsedMillis();
+        assertTrue(depth < MAX_DEPTH, "The AI ignored its time budget (depth " + depth + ")");
+        assertTrue(millis < 1000, "The AI overran its time budget (" + millis + " ms)");
+        assertTrue(game.getPossibleMoves().contains(move));
+    }
+
+    /**
+     * Check that the AI stops on its node budget, and still plays a legal
+     * move.
+     */
+    @Test
+    void stopsOnNodeBudget() {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetBudget(new SearchBudget(MAX_DEPTH, SearchBudget.UNLIMITED, 5000));
+
+        Move move = ai.GetMove(game);
+        assertTrue(game.getPossibleMoves().contains(move));
+    }
+
+    /**
+     * Check that several search threads together find the same kind of move
+     * as one, and that at least one thread is required.
+     */
+    @Test
+    void searchesWithSeveralThreads() {
+        ArrayList<IChessPiece> pieces = new ArrayList<>();
+        pieces.add(new ChessPieceQueen(new Position(8, 2), Color.BLACK));
+        pieces.add(new ChessPiecePawn(new Position(3, 3), Color.BLACK));
+        pieces.add(new ChessPieceKing(new Position(1, 1), Color.WHITE));
+        pieces.add(new ChessPieceKing(new Position(8, 8), Color.BLACK));
+
+        Board board = new Board(pieces);
+        ChessGame game = ChessGame.setupTestBoard(board, Color.BLACK);
+        EngineExecutor executor = new EngineExecutor(4, Thread.NORM_PRIORITY);
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard, TranspositionTable.DEFAULT_MEGABYTES, executor);
+        ai.SetThreads(4);
+        ai.PerformMove(game);
+
+        assertTrue(game.isGameOver());
+        assertThrows(IllegalArgumentException.class, () -> ai.SetThreads(0));
+    }
+
+    /**
+     * Check that the principal variation starts with the move played, and is
+     * a line of legal moves, one after the other.
+     */
+    @Test
+    void principalVariationIsALineOfLegalMoves() {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetBudget(new SearchBudget(5, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        assertTrue(ai.GetPrincipalVariation().isEmpty());
+
+        Move move = ai.GetMove(game);
+        List<Move> line = ai.GetPrincipalVariation();
+        assertFalse(line.isEmpty());
+        assertEquals(move, line.get(0));
+        for (Move m : line) {
+            assertTrue(game.getPossibleMoves().contains(m), "Illegal move " + m + " in " + line);
+            game.performMove(m);
+        }
+    }
+
+    /**
+     * Check that the AI reports every iteration of its search, with sensible statistics.
+     */
+    @Test
+    void reportsEveryIteration() {
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetBudget(new SearchBudget(5, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        assertSame(SearchReport.EMPTY, ai.GetSearchReport());
+        List<SearchReport> iterations = new ArrayList<>();
+        ai.SetSearchListener(iterations::add);
+
+        ai.GetMove(Perft.Reference.KIWIPETE.game());
+        assertEquals(5, iterations.size());
+        for (int i = 0; i < iterations.size(); i++) {
+            assertEquals(i + 1, iterations.get(i).getDepth());
+            if (i > 0) assertTrue(iterations.get(i).getNodes() > iterations.get(i - 1).getNodes());
+        }
+
+        SearchReport report = ai.GetSearchReport();
+        assertEquals(5, report.getDepth());
+        assertTrue(report.getSelectiveDepth() > report.getDepth(), "The quiescence search goes deeper");
+        assertTrue(report.getQuiescenceNodes() > 0 && report.getQuiescenceNodes() < report.getNodes());
+        assertTrue(report.getBranchingFactor() > 1);
+        assertTrue(report.getFirstMoveCutoffRate() > 0.5, "The best moves are tried first");
+        assertTrue(report.getTableHitRate() > 0 && report.getTableHitRate() < 1);
+    }
+
+    /**
+     * Check that a move from the opening book is reported without a search.
+     */
+    @Test
+    void reportsNoNodesForBookMoves() {
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.GetMove(new ChessGame(null, null));
+        assertEquals(1, ai.GetPrincipalVariation().size());
+        assertEquals(0, ai.GetSearchReport().getNodes());
+        assertEquals(0, ai.GetSearchReport().getDepth());
+    }
+
+    /**
+     * Check that two games played with the same seed are the same.
+     */
+    @Test
+    void seededSearchIsReproducible() {
+        // Easy makes random mistakes, and the book picks moves at random
+        assertEquals(playSeeded(42), playSeeded(42));
+    }
+
+    /**
+     * Check that the mistakes of a Medium search do not end up in the
+     * transposition table, where they would hide a mate from a later Hard
+     * search of the same table.
+     */
+    @Test
+    void mistakesDoNotPoisonTheTable() {
+        // Legal's mate: Nf6+ gxf6 Bxf7#
+        String fen = "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1";
+        SearchBudget budget = new SearchBudget(4, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED);
+        for (int trial = 0; trial < 10; trial++) {
+            MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Medium, 1);
+            ai.SetThreads(1);
+            for (int seed = 10 * trial; seed < 10 * trial + 3; seed++) {
+                ai.SetBudget(budget);
+                ai.SetSeed(seed);
+                ai.GetMove(ChessGame.setupTestBoard(Fen.parse(fen), Color.WHITE));
+            }
+
+            ai.SetDifficulty(AiDifficulty.Hard);
+            ai.SetBudget(budget);
+            ai.SetSeed(1);
+            Move move = ai.GetMove(ChessGame.setupTestBoard(Fen.parse(fen), Color.WHITE));
+            assertEquals("Nd5-f6", move.toString(), "Hard missed the mate after Medium searches, trial " + trial);
+        }
+    }
+
+    /**
+     * Helper method: let a seeded AI play both sides of a game for a few
+     * moves, on one thread and without a time limit.
+     */
+    private static List<String> playSeeded(long seed) {
+        ChessGame game = new ChessGame(null, null);
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Easy, 1);
+        ai.SetBudget(new SearchBudget(3, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        ai.SetThreads(1);
+        ai.SetSeed(seed);
+        List<String> moves = new ArrayList<>();
+        for (int ply = 0; ply < 24; ply++) {
+            Move move = ai.GetMove(game);
+            moves.add(move + " " + ai.GetPrincipalVariation());
+            game.performMove(move);
+        }
+        return moves;
+    }
 }
@@ -0,0 +1,129 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.ai.AiDifficulty;
+import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.SearchBudget;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests keeping the search from allocating memory for every position it
+ * searches, since garbage collection pauses show up as stutters in the game.
+ *
+ * The memory allocated by the thread running the code is counted by the JVM.
+ * The JIT compiler removes some allocations only once the code is hot, so
+ * every measurement is repeated a few times, and the round allocating the
+ * least counts.
+ */
+class AllocationTest {
+    private static final int ROUNDS = 5;
+    // only promotions allocate, a new piece each
+    private static final double SEARCH_BYTES_PER_NODE = 4;
+    private static final int SHALLOW_DEPTH = 3;
+    private static final int DEEP_DEPTH = 5;
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static EngineExecutor executor;
+
+    @BeforeAll
+    static void enableCounting() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported(), "The JVM cannot count allocated memory");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        executor = new EngineExecutor(1, Thread.NORM_PRIORITY);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        if (executor != null) executor.shutdown();
+    }
+
+    @Test
+    void searchAllocatesAlmostNothingPerNode() {
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard, 1, executor);
+        ai.SetThreads(1); // all on this thread
+        ai.SetOpeningBook(null);
+        ai.SetTablebase(null);
+
+        // Setting up a search takes the same memory at any depth, so only
+        // the memory of the extra nodes of a deeper search counts.
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = 0;
+            long nodes = 0;
+            for (Perft.Reference ref : Perft.Reference.values()) {
+                ChessGame game = ref.game();
+                bytes -= search(ai, game, SHALLOW_DEPTH);
+                nodes -= ai.GetSearchReport().getNodes();
+                bytes += search(ai, game, DEEP_DEPTH);
+                nodes += ai.GetSearchReport().getNodes();
+            }
+            best = Math.min(best, (double) bytes / nodes);
+        }
+        assertTrue(best <= SEARCH_BYTES_PER_NODE, "The search allocated " + best + " bytes per node");
+    }
+
+    @Test
+    void moveGenerationDoesNotAllocate() {
+        MoveGenerator generator = new MoveGenerator();
+        MoveList moves = new MoveList();
+        Board[] boards = new Board[Perft.Reference.values().length];
+        for (int i = 0; i < boards.length; i++) boards[i] = Fen.parse(Perft.Reference.values()[i].fen);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            for (int repeat = 0; repeat < 1000; repeat++) {
+                for (Board board : boards) {
+                    moves.clear();
+                    generator.generate(board, board.getSideToMove(), 0, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        if (PackedMove.isPromotion(moves.get(i))) continue; // a new piece
+                        board.makeMove(moves.get(i));
+                        board.unmakeMove();
+                    }
+                }
+            }
+            best = Math.min(best, allocatedBytes() - before);
+        }
+        assertEquals(0, best, "Bytes allocated generating, making and unmaking moves");
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread so far.
+     *
+     * @return The number of bytes
+     */
+    static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Helper method: search a game to a depth with an empty transposition
+     * table and a fixed seed, and return the bytes allocated.
+     */
+    private static long search(MiniMaxAIPlayer ai, ChessGame game, int depth) {
+        ai.SetBudget(new SearchBudget(depth, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        ai.NewGame();
+        ai.SetSeed(1);
+        long before = allocatedBytes();
+        ai.GetMove(game);
+        return allocatedBytes() - before;
+    }
+}
@@ -1,11 +1,23 @@
 package com.syntax_highlighters.chess.general;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.syntax_highlighters.chess.AsyncPlayer;
 import com.syntax_highlighters.chess.ai.AiDifficulty;
+import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.SearchBudget;
+import com.syntax_highlighters.chess.ai.TranspositionTable;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Perft;
 import com.syntax_highlighters.chess.game.ChessGame;
 import com.syntax_highlighters.chess.move.Move;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests pertaining to the Async Player Wrapper.
@@ -30,4 +42,54 @@ class AsyncPlayerTest {
 
         System.out.println(m1 + "\n" + m2);
     }
+
+    /**
+     * Check that a requested move completes the future.
+     */
+    @Test
+    void requestedMoveCompletesFuture() throws Exception {
+        ChessGame game = new ChessGame(null, null);
+        AsyncPlayer player = new AsyncPlayer(new MiniMaxAIPlayer(AiDifficulty.Easy));
+
+        Move move = player.requestMove(game).get(5, TimeUnit.SECONDS);
+        assertTrue(game.getPossibleMoves().contains(move));
+        assertFalse(player.isThinking());
+    }
+
+    /**
+     * Check that cancelling a search without limits stops it.
+     */
+    @Test
+    void cancelStopsSearch() throws Exception {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        EngineExecutor executor = new EngineExecutor(1, Thread.NORM_PRIORITY);
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard, TranspositionTable.DEFAULT_MEGABYTES, executor);
+        ai.SetBudget(new SearchBudget(60, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        AsyncPlayer player = new AsyncPlayer(ai, executor);
+
+        CompletableFuture<Move> future = player.requestMove(game);
+        Thread.sleep(100);
+        assertTrue(player.isThinking());
+        player.cancel();
+        assertTrue(future.isCancelled());
+        assertFalse(player.isThinking());
+
+        // the only thread of the executor is free once the search has stopped
+        assertEquals("free", executor.submit(() -> "free").get(2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Check that a search without limits plays its best move so far at the
+     * deadline.
+     */
+    @Test
+    void deadlineEndsSearchWithMove() throws Exception {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetBudget(new SearchBudget(60, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED));
+        AsyncPlayer player = new AsyncPlayer(ai, ai.GetExecutor());
+
+        Move move = player.requestMove(game, 200).get(2, TimeUnit.SECONDS);
+        assertTrue(game.getPossibleMoves().contains(move));
+    }
 }
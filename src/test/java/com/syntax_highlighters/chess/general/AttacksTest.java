@@ -0,0 +1,102 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
+import com.syntax_highlighters.chess.chesspiece.ChessPiecePawn;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceRook;
+import com.syntax_highlighters.chess.engine.Attacks;
+import com.syntax_highlighters.chess.engine.BitBoard;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the precomputed attack tables are correct.
+ *
+ * @see Attacks
+ */
+class AttacksTest {
+    private final Random rdm = new Random(1234);
+
+    @Test
+    void knightInCornerAttacksTwoSquares() {
+        long expected = bit(2, 3) | bit(3, 2);
+        assertEquals(expected, Attacks.knight(BitBoard.square(1, 1)));
+    }
+
+    @Test
+    void kingInCenterAttacksEightSquares() {
+        assertEquals(8, Long.bitCount(Attacks.king(BitBoard.square(4, 4))));
+    }
+
+    @Test
+    void pawnsAttackDiagonallyForward() {
+        int sq = BitBoard.square(1, 2);
+        assertEquals(bit(2, 3), Attacks.pawn(BitBoard.WHITE, sq));
+        assertEquals(bit(2, 1), Attacks.pawn(BitBoard.BLACK, sq));
+    }
+
+    @Test
+    void rookOnEmptyBoardAttacksFourteenSquares() {
+        for (int sq = 0; sq < 64; sq++) {
+            assertEquals(14, Long.bitCount(Attacks.rook(sq, 0L)));
+        }
+    }
+
+    @Test
+    void sliderAttacksMatchRayWalkForRandomOccupancies() {
+        int[][] rookDirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopDirs = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int i = 0; i < 2000; i++) {
+            long occupied = rdm.nextLong() & rdm.nextLong();
+            int sq = rdm.nextInt(64);
+            assertEquals(rays(sq, occupied, rookDirs), Attacks.rook(sq, occupied));
+            assertEquals(rays(sq, occupied, bishopDirs), Attacks.bishop(sq, occupied));
+        }
+    }
+
+    @Test
+    void blockedRookDoesNotThreatenKing() {
+        Board board = new Board();
+        ChessPieceKing king = new ChessPieceKing(new Position(5, 1), Color.WHITE);
+        board.putAtPosition(king.getPosition(), king);
+        board.putAtPosition(new Position(5, 8), new ChessPieceRook(new Position(5, 8), Color.BLACK));
+        assertTrue(king.isThreatened(board));
+
+        board.putAtPosition(new Position(5, 2), new ChessPiecePawn(new Position(5, 2), Color.WHITE));
+        assertFalse(king.isThreatened(board));
+        assertFalse(Attacks.isAttacked(board.getBitBoard(), BitBoard.square(5, 1), BitBoard.BLACK));
+    }
+
+    /**
+     * Helper method: get the bit of a square given by one-based coordinates.
+     */
+    private static long bit(int x, int y) {
+        return 1L << BitBoard.square(x, y);
+    }
+
+    /**
+     * Helper method: compute sliding attacks the slow way.
+     */
+    private static long rays(int sq, long occupied, int[][] dirs) {
+        long result = 0L;
+        for (int[] d : dirs) {
+            int x = sq % 8 + d[0];
+            int y = sq / 8 + d[1];
+            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                result |= 1L << (y * 8 + x);
+                if ((occupied & (1L << (y * 8 + x))) != 0) break;
+                x += d[0];
+                y += d[1];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.syntax_highlighters.chess.ai.Bench;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests comparing the AI search with the baseline bench checked in with the
+ * code, by what it finds and by how many nodes it searches to find it,
+ * rather than by time, which depends on the machine.
+ *
+ * After an intended change of the search, write a new baseline with
+ * gradle bench -Pargs="6 src/test/resources/bench.txt".
+ *
+ * @see Bench
+ */
+class BenchTest {
+    private static final String BASELINE = "/bench.txt";
+    private static final double NODE_TOLERANCE = 0.05; // growth allowed before failing
+    private static final double STALE_TOLERANCE = 0.20; // shrinking allowed before failing
+
+    private static Bench baseline;
+    private static Bench bench;
+
+    @BeforeAll
+    static void runBench() throws IOException {
+        baseline = Bench.parse(readLines(BASELINE));
+        bench = Bench.run(baseline.getDepth());
+    }
+
+    /**
+     * Check that the search finds the same principal variations as the
+     * baseline.
+     */
+    @Test
+    void findsTheSameLinesAsTheBaseline() {
+        assertEquals(baseline.getPositions(), bench.getPositions());
+        for (String position : baseline.getPositions()) {
+            assertEquals(baseline.getLine(position), bench.getLine(position), "Principal variation of " + position);
+        }
+        assertEquals(baseline.getSignature(), bench.getSignature(), "Bench signature");
+    }
+
+    /**
+     * Check that the search of no position takes more nodes than in the
+     * baseline, beyond a small tolerance.
+     */
+    @Test
+    void searchesNoMoreNodesThanTheBaseline() {
+        StringBuilder grown = new StringBuilder();
+        for (String position : baseline.getPositions()) {
+            if (bench.getNodes(position) > baseline.getNodes(position) * (1 + NODE_TOLERANCE)) {
+                grown.append(describe(position));
+            }
+        }
+        assertTrue(grown.length() == 0, "Searched more nodes than the baseline in" + grown);
+    }
+
+    /**
+     * Check that the baseline is not stale: a search that got much more
+     * efficient needs a new baseline, or it would let the search get worse
+     * again unnoticed.
+     */
+    @Test
+    void searchesAboutAsManyNodesAsTheBaseline() {
+        StringBuilder shrunk = new StringBuilder();
+        for (String position : baseline.getPositions()) {
+            if (bench.getNodes(position) < baseline.getNodes(position) * (1 - STALE_TOLERANCE)) {
+                shrunk.append(describe(position));
+            }
+        }
+        assertTrue(shrunk.length() == 0, "Searched far fewer nodes than the baseline, update it, in" + shrunk);
+    }
+
+    /**
+     * Helper method: describe the nodes searched in a position, by the
+     * baseline and now.
+     */
+    private static String describe(String position) {
+        return String.format("%n%s: %d -> %d", position, baseline.getNodes(position), bench.getNodes(position));
+    }
+
+    /**
+     * Helper method: read the lines of a resource.
+     */
+    private static List<String> readLines(String resource) throws IOException {
+        InputStream in = BenchTest.class.getResourceAsStream(resource);
+        assertNotNull(in, "Missing " + resource);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) lines.add(line);
+        }
+        return lines;
+    }
+}
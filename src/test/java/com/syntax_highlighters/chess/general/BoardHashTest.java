@@ -0,0 +1,122 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the Zobrist hash of the board identifies positions.
+ *
+ * @see Board#hash()
+ */
+class BoardHashTest {
+
+    @Test
+    void sameStartingPositionHasSameHash() {
+        Board a = new Board();
+        Board b = new Board();
+        a.setupNewGame();
+        b.setupNewGame();
+        assertEquals(a.hash(), b.hash());
+        assertNotEquals(new Board().hash(), a.hash());
+    }
+
+    @Test
+    void transpositionGivesSameHash() {
+        ChessGame game = new ChessGame(null, null);
+        long start = game.getBoard().hash();
+
+        move(game, "g1", "f3");
+        move(game, "g8", "f6");
+        move(game, "f3", "g1");
+        move(game, "f6", "g8");
+
+        assertEquals(start, game.getBoard().hash());
+    }
+
+    @Test
+    void sideToMoveChangesHash() {
+        Board board = new Board();
+        board.setupNewGame();
+        long white = board.hash();
+        board.setSideToMove(Color.BLACK);
+        assertNotEquals(white, board.hash());
+    }
+
+    @Test
+    void losingCastlingRightsChangesHash() {
+        ChessGame game = new ChessGame(null, null);
+        move(game, "e2", "e4");
+        move(game, "e7", "e5");
+        long before = game.getBoard().hash();
+        int rights = game.getBoard().getCastlingRights();
+
+        // king steps out and back; the position is the same, but castling is
+        // no longer allowed
+        move(game, "e1", "e2");
+        move(game, "e8", "e7");
+        move(game, "e2", "e1");
+        move(game, "e7", "e8");
+
+        assertEquals(Board.BLACK_KINGSIDE | Board.BLACK_QUEENSIDE
+                | Board.WHITE_KINGSIDE | Board.WHITE_QUEENSIDE, rights);
+        assertEquals(0, game.getBoard().getCastlingRights());
+        assertNotEquals(before, game.getBoard().hash());
+    }
+
+    @Test
+    void enPassantFileIsPartOfHash() {
+        ChessGame game = new ChessGame(null, null);
+        move(game, "e2", "e4");
+        move(game, "a7", "a6");
+        move(game, "e4", "e5");
+        move(game, "d7", "d5"); // can be captured en passant by e5
+        assertEquals(3, game.getBoard().getEnPassantFile());
+
+        long withEnPassant = game.getBoard().hash();
+        game.getBoard().setLastMove(null);
+        assertEquals(-1, game.getBoard().getEnPassantFile());
+        assertNotEquals(withEnPassant, game.getBoard().hash());
+    }
+
+    @Test
+    void incrementalHashMatchesRecomputedHashDuringRandomGames() {
+        Random rdm = new Random(42);
+        for (int g = 0; g < 5; g++) {
+            ChessGame game = new ChessGame(null, null);
+            for (int i = 0; i < 60; i++) {
+                List<Move> moves = game.allPossibleMoves();
+                if (moves.isEmpty()) break;
+                game.performMove(moves.get(rdm.nextInt(moves.size())));
+
+                // copy() builds the board from scratch
+                assertEquals(game.getBoard().copy().hash(), game.getBoard().hash());
+            }
+            while (!game.getMoveHistory().isEmpty()) {
+                game.undoMove();
+            }
+            Board fresh = new Board();
+            fresh.setupNewGame();
+            assertEquals(fresh.hash(), game.getBoard().hash());
+        }
+    }
+
+    /**
+     * Helper method: perform the only move between two squares.
+     */
+    private static void move(ChessGame game, String from, String to) {
+        List<Move> moves = game.getMoves(Position.fromChessNotation(from), Position.fromChessNotation(to));
+        assertEquals(1, moves.size());
+        game.performMove(moves.get(0));
+    }
+}
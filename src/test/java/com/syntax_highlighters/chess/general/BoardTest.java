@@ -19,6 +19,7 @@ import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
 import com.syntax_highlighters.chess.chesspiece.ChessPieceKnight;
 import com.syntax_highlighters.chess.Color;
 import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.BitBoard;
 
 import org.junit.jupiter.api.Test;
 
@@ -184,4 +185,47 @@ class BoardTest {
 
         assertTrue(game.isGameOver());
     }
+
+    /*
+     * Tests that the bitboards follow the pieces as they are put on the
+     * board, moved around and removed.
+     */
+    @Test
+    void bitBoardsMirrorPiecesOnBoard(){
+        Board k = new Board();
+        k.putAtPosition(p, piece);
+        BitBoard bits = k.getBitBoard();
+        int square = BitBoard.square(p.getX(), p.getY());
+        assertEquals(1L << square, bits.pieces(BitBoard.WHITE, BitBoard.KING));
+        assertEquals(1L << square, bits.occupied());
+
+        Position q = new Position(4, 3);
+        k.putAtPosition(q, piece);
+        int newSquare = BitBoard.square(q.getX(), q.getY());
+        assertEquals(1L << newSquare, bits.occupancy(BitBoard.WHITE));
+        assertEquals(piece, k.getAtSquare(newSquare));
+        assertNull(k.getAtSquare(square));
+
+        k.removePiece(piece);
+        assertEquals(0L, bits.occupied());
+        assertEquals(0, k.getAllPieces(Color.WHITE).size());
+    }
+
+    /*
+     * Tests that capturing a piece removes it from the bitboards of its color.
+     */
+    @Test
+    void capturedPieceIsRemovedFromBitBoards(){
+        Board k = new Board();
+        k.setupNewGame();
+        IChessPiece blackKnight = k.getAtPosition(new Position(2, 8));
+        k.putAtPosition(new Position(2, 8), k.getAtPosition(new Position(2, 2)));
+
+        BitBoard bits = k.getBitBoard();
+        assertEquals(15, bits.pieceCount(BitBoard.BLACK));
+        assertEquals(1, bits.pieceCount(BitBoard.BLACK, BitBoard.KNIGHT));
+        assertFalse(k.getAllPieces(Color.BLACK).contains(blackKnight));
+        assertEquals(BitBoard.PAWN, bits.typeAt(BitBoard.square(2, 8)));
+        assertEquals(BitBoard.WHITE, bits.colorAt(BitBoard.square(2, 8)));
+    }
 }
@@ -0,0 +1,64 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the engine executor bounds its threads as configured.
+ *
+ * @see EngineExecutor
+ */
+class EngineExecutorTest {
+
+    @Test
+    void runsNoMoreTasksThanItsParallelismAtOnce() throws Exception {
+        EngineExecutor executor = new EngineExecutor(2, EngineExecutor.DEFAULT_PRIORITY);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(executor.submit(() -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> task : tasks) task.get();
+        executor.shutdown();
+
+        assertTrue(mostRunning.get() <= 2, mostRunning.get() + " tasks ran at once");
+    }
+
+    @Test
+    void threadsHaveTheGivenPriorityAndAreDaemons() throws Exception {
+        EngineExecutor executor = new EngineExecutor(1, Thread.MIN_PRIORITY);
+        Thread thread = executor.submit(Thread::currentThread).get();
+        executor.shutdown();
+
+        assertEquals(Thread.MIN_PRIORITY, thread.getPriority());
+        assertTrue(thread.isDaemon());
+        assertEquals(1, executor.getParallelism());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new EngineExecutor(0, Thread.NORM_PRIORITY));
+        assertThrows(IllegalArgumentException.class, () -> new EngineExecutor(1, Thread.MAX_PRIORITY + 1));
+    }
+}
@@ -0,0 +1,86 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.Evaluation;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.move.MoveList;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the incrementally updated evaluation matches the scores
+ * of the pieces.
+ *
+ * @see Board#evaluate(Color)
+ * @see Evaluation
+ */
+class EvaluationTest {
+
+    @Test
+    void startingPositionIsEven() {
+        Board board = new Board();
+        board.setupNewGame();
+        assertEquals(0, board.evaluate(Color.WHITE));
+        assertEquals(0, board.evaluate(Color.BLACK));
+    }
+
+    @Test
+    void incrementalScoreMatchesPiecesDuringRandomGames() {
+        Random rdm = new Random(17);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList moves = new MoveList();
+        for (int g = 0; g < 20; g++) {
+            Board board = new Board();
+            board.setupNewGame();
+            for (int i = 0; i < 200; i++) {
+                assertEquals(fromScratch(board, Color.WHITE), board.evaluate(Color.WHITE), board.toString());
+                assertEquals(fromScratch(board, Color.BLACK), board.evaluate(Color.BLACK), board.toString());
+                assertEquals(fromScratch(board.copy(), Color.WHITE), board.evaluate(Color.WHITE));
+
+                moves.clear();
+                generator.generate(board, board.getSideToMove(), 0L, moves);
+                if (moves.isEmpty()) break;
+                board.makeMove(moves.get(rdm.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void loneKingsUseEndgameTable() {
+        ChessPieceKing white = new ChessPieceKing(Position.fromChessNotation("d4"), Color.WHITE);
+        ChessPieceKing black = new ChessPieceKing(Position.fromChessNotation("h8"), Color.BLACK);
+        Board board = new Board();
+        board.putAtPosition(white.getPosition(), white);
+        board.putAtPosition(black.getPosition(), black);
+
+        int expected = white.getEndgamePositionalScore() - black.getEndgamePositionalScore();
+        assertEquals(expected, board.evaluate(Color.WHITE));
+        assertEquals(-expected, board.evaluate(Color.BLACK));
+    }
+
+    /**
+     * Helper method: compute the tapered score from the pieces themselves.
+     */
+    private static int fromScratch(Board board, Color color) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (IChessPiece p : board.getAllPieces()) {
+            int sign = p.getColor() == color ? 1 : -1;
+            int score = p.getPositionalScore();
+            middlegame += sign * score;
+            endgame += sign * (p instanceof ChessPieceKing
+                    ? ((ChessPieceKing) p).getEndgamePositionalScore() : score);
+            phase += Evaluation.phaseWeight(p.getPieceType());
+        }
+        return Evaluation.taper(middlegame, endgame, phase);
+    }
+}
@@ -0,0 +1,171 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceQueen;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that Board.makeMove and Board.unmakeMove agree with the Move
+ * classes, and restore the board exactly.
+ *
+ * @see Board#makeMove(int)
+ * @see Board#unmakeMove()
+ */
+class MakeUnmakeTest {
+
+    @Test
+    void makeMoveAgreesWithMoveObjectsDuringRandomGames() {
+        Random rdm = new Random(3);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList moves = new MoveList();
+        for (int g = 0; g < 20; g++) {
+            ChessGame game = new ChessGame(null, null);
+            Board board = game.getBoard().copy();
+            for (int i = 0; i < 150; i++) {
+                moves.clear();
+                generator.generate(board, board.getSideToMove(), 0L, moves);
+                if (moves.isEmpty()) break;
+
+                String before = describe(board);
+                for (int j = 0; j < moves.size(); j++) {
+                    int move = moves.get(j);
+                    Board expected = board.copy();
+                    Move m = PackedMove.toMove(move, expected);
+                    m.DoMove(expected);
+                    expected.setLastMove(m);
+                    expected.setSideToMove(expected.getSideToMove().opponentColor());
+
+                    board.makeMove(move);
+                    assertEquals(describe(expected), describe(board), PackedMove.toString(move));
+                    board.unmakeMove();
+                    assertEquals(before, describe(board), PackedMove.toString(move));
+                }
+                board.makeMove(moves.get(rdm.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void unmakeRestoresWholeGame() {
+        Random rdm = new Random(5);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList moves = new MoveList();
+        Board board = new Board();
+        board.setupNewGame();
+        String start = describe(board);
+
+        int made = 0;
+        for (int i = 0; i < 200; i++) {
+            moves.clear();
+            generator.generate(board, board.getSideToMove(), 0L, moves);
+            if (moves.isEmpty()) break;
+            board.makeMove(moves.get(rdm.nextInt(moves.size())));
+            made++;
+        }
+        for (int i = 0; i < made; i++) board.unmakeMove();
+        assertEquals(start, describe(board));
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    void nullMovePassesTurnAndClearsEnPassant() {
+        Board board = new Board();
+        board.setupNewGame();
+        board.makeMove(PackedMove.of(sq("e2"), sq("e4"), PackedMove.DOUBLE_PAWN_PUSH));
+        String before = describe(board);
+        long hash = board.hash();
+
+        board.makeNullMove();
+        assertEquals(Color.WHITE, board.getSideToMove());
+        assertEquals(-1, board.getDoubleStepSquare());
+        assertTrue(hash != board.hash());
+
+        board.unmakeMove();
+        assertEquals(before, describe(board));
+        assertEquals(hash, board.hash());
+        assertEquals(sq("e4"), board.getDoubleStepSquare());
+    }
+
+    @Test
+    void doubleStepAllowsEnPassantUntilNextMove() {
+        Board board = new Board();
+        board.setupNewGame();
+        board.makeMove(PackedMove.of(sq("e2"), sq("e4"), PackedMove.DOUBLE_PAWN_PUSH));
+        board.makeMove(PackedMove.of(sq("a7"), sq("a6"), PackedMove.QUIET));
+        board.makeMove(PackedMove.of(sq("e4"), sq("e5"), PackedMove.QUIET));
+        board.makeMove(PackedMove.of(sq("d7"), sq("d5"), PackedMove.DOUBLE_PAWN_PUSH));
+        assertEquals(sq("d5"), board.getDoubleStepSquare());
+        assertEquals(3, board.getEnPassantFile());
+
+        int enPassant = PackedMove.of(sq("e5"), sq("d6"), PackedMove.EN_PASSANT);
+        assertTrue(MoveGenerator.legalMoves(board, Color.WHITE).stream()
+            .anyMatch(m -> PackedMove.fromMove(m, board) == enPassant));
+        board.makeMove(enPassant);
+        assertNull(board.getAtPosition(pos("d5")));
+        assertEquals(-1, board.getDoubleStepSquare());
+        board.unmakeMove();
+        assertEquals(BitBoard.PAWN, board.getAtPosition(pos("d5")).getPieceType());
+        assertEquals(sq("d5"), board.getDoubleStepSquare());
+    }
+
+    @Test
+    void promotionIsReplacedByPawnOnUnmake() {
+        Board board = new Board();
+        board.setupNewGame();
+        IChessPiece pawn = board.getAtPosition(pos("b2"));
+        board.removePiece(board.getAtPosition(pos("b7")));
+        board.putAtPosition(pos("b7"), pawn);
+
+        board.makeMove(PackedMove.promotion(sq("b7"), sq("a8"), BitBoard.QUEEN, true));
+        assertTrue(board.getAtPosition(pos("a8")) instanceof ChessPieceQueen);
+        assertEquals(Color.WHITE, board.getAtPosition(pos("a8")).getColor());
+        board.unmakeMove();
+        assertSame(pawn, board.getAtPosition(pos("b7")));
+        assertEquals(pos("b7"), pawn.getPosition());
+        assertEquals(BitBoard.ROOK, board.getAtPosition(pos("a8")).getPieceType());
+        assertFalse(board.getBitBoard().isOccupied(sq("b2")));
+    }
+
+    /**
+     * Helper method: describe everything makeMove should change in the board.
+     */
+    private static String describe(Board board) {
+        StringBuilder b = new StringBuilder(board.toString());
+        b.append(Long.toHexString(board.hash())).append(' ')
+            .append(board.getSideToMove()).append(' ')
+            .append(board.getCastlingRights()).append(' ')
+            .append(board.getEnPassantFile()).append('\n');
+        for (IChessPiece p : board.getAllPieces()) {
+            b.append(p.toChessNotation()).append(p.getPosition())
+                .append(p.hasMoved() ? '*' : ' ');
+        }
+        return b.toString();
+    }
+
+    private static int sq(String notation) {
+        return pos(notation).index();
+    }
+
+    private static Position pos(String notation) {
+        return Position.fromChessNotation(notation);
+    }
+}
@@ -0,0 +1,184 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.Position;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceBishop;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKing;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceKnight;
+import com.syntax_highlighters.chess.chesspiece.ChessPiecePawn;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceQueen;
+import com.syntax_highlighters.chess.chesspiece.ChessPieceRook;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.CastlingMove;
+import com.syntax_highlighters.chess.move.EnPassantMove;
+import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the bitboard move generator produces exactly the legal
+ * moves.
+ *
+ * @see MoveGenerator
+ */
+class MoveGeneratorTest {
+
+    @Test
+    void generatorAgreesWithPiecesDuringRandomGames() {
+        Random rdm = new Random(7);
+        for (int g = 0; g < 30; g++) {
+            ChessGame game = new ChessGame(null, null);
+            for (int i = 0; i < 120; i++) {
+                Board board = game.getBoard();
+                Color color = game.nextPlayerColor();
+                List<Move> moves = MoveGenerator.legalMoves(board, color);
+                assertEquals(pieceMoves(board, color), describe(moves), board.toString());
+                if (moves.isEmpty()) break;
+                game.performMove(moves.get(rdm.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void pinnedPieceMovesOnlyAlongPin() {
+        Board board = board(
+            new ChessPieceKing(pos("e1"), Color.WHITE),
+            new ChessPieceRook(pos("e4"), Color.WHITE),
+            new ChessPieceKnight(pos("d2"), Color.WHITE),
+            new ChessPieceQueen(pos("e8"), Color.BLACK),
+            new ChessPieceBishop(pos("a5"), Color.BLACK),
+            new ChessPieceKing(pos("h8"), Color.BLACK));
+
+        List<Move> moves = MoveGenerator.legalMoves(board, Color.WHITE);
+        assertTrue(moves.stream().noneMatch(m -> m.getOldPosition().equals(pos("d2"))));
+        assertTrue(moves.stream()
+            .filter(m -> m.getOldPosition().equals(pos("e4")))
+            .allMatch(m -> m.getPosition().getX() == 5));
+        assertEquals(pieceMoves(board, Color.WHITE), describe(moves));
+    }
+
+    @Test
+    void onlyKingMovesInDoubleCheck() {
+        Board board = board(
+            new ChessPieceKing(pos("e1"), Color.WHITE),
+            new ChessPieceQueen(pos("d1"), Color.WHITE),
+            new ChessPieceRook(pos("e8"), Color.BLACK),
+            new ChessPieceKnight(pos("f3"), Color.BLACK),
+            new ChessPieceKing(pos("a8"), Color.BLACK));
+
+        List<Move> moves = MoveGenerator.legalMoves(board, Color.WHITE);
+        assertTrue(moves.stream().allMatch(m -> m.getOldPosition().equals(pos("e1"))));
+        assertEquals(pieceMoves(board, Color.WHITE), describe(moves));
+    }
+
+    @Test
+    void enPassantNotAllowedIfItExposesKingAlongRank() {
+        ChessPiecePawn white = new ChessPiecePawn(pos("e5"), Color.WHITE);
+        ChessPiecePawn black = new ChessPiecePawn(pos("d7"), Color.BLACK);
+        Board board = board(
+            new ChessPieceKing(pos("h5"), Color.WHITE),
+            white, black,
+            new ChessPieceRook(pos("a5"), Color.BLACK),
+            new ChessPieceKing(pos("a8"), Color.BLACK));
+        white.setHasMoved(true);
+        Move doubleStep = black.getMovesTo(pos("d5"), board).get(0);
+        doubleStep.DoMove(board);
+        board.setLastMove(doubleStep);
+
+        List<Move> moves = MoveGenerator.legalMoves(board, Color.WHITE);
+        assertTrue(moves.stream().noneMatch(m -> m instanceof EnPassantMove));
+        assertEquals(pieceMoves(board, Color.WHITE), describe(moves));
+    }
+
+    @Test
+    void queensideCastlingAllowedWhenOnlyRookPathIsAttacked() {
+        Board board = board(
+            new ChessPieceKing(pos("e1"), Color.WHITE),
+            new ChessPieceRook(pos("a1"), Color.WHITE),
+            new ChessPieceRook(pos("b8"), Color.BLACK),
+            new ChessPieceKing(pos("h8"), Color.BLACK));
+
+        List<Move> moves = MoveGenerator.legalMoves(board, Color.WHITE);
+        assertTrue(moves.stream().anyMatch(m -> m instanceof CastlingMove));
+        assertEquals(pieceMoves(board, Color.WHITE), describe(moves));
+    }
+
+    @Test
+    void capturesAreTheCapturesAndPromotionsOfAllMoves() {
+        Random rdm = new Random(13);
+        MoveGenerator generator = new MoveGenerator();
+        for (Perft.Reference reference : Perft.Reference.values()) {
+            Board board = Fen.parse(reference.fen);
+            for (int i = 0; i < 40; i++) {
+                Color color = board.getSideToMove();
+                MoveList all = new MoveList();
+                generator.generate(board, color, 0L, all);
+                MoveList captures = new MoveList();
+                generator.generateCaptures(board, color, 0L, captures);
+
+                List<Integer> expected = new ArrayList<>();
+                for (int j = 0; j < all.size(); j++) {
+                    int move = all.get(j);
+                    if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) expected.add(move);
+                }
+                List<Integer> actual = new ArrayList<>();
+                for (int j = 0; j < captures.size(); j++) actual.add(captures.get(j));
+                Collections.sort(expected);
+                Collections.sort(actual);
+                assertEquals(expected, actual, board.toString());
+
+                if (all.isEmpty()) break;
+                board.makeMove(all.get(rdm.nextInt(all.size())));
+            }
+        }
+    }
+
+    /**
+     * Helper method: get the moves the pieces themselves consider legal.
+     */
+    private static List<String> pieceMoves(Board board, Color color) {
+        return describe(board.getAllPieces(color).stream()
+            .flatMap(p -> p.allPossibleMoves(board).stream())
+            .collect(Collectors.toList()));
+    }
+
+    /**
+     * Helper method: describe a list of moves in a sorted, comparable form.
+     *
+     * The capture marker is ignored, since it is only known once a move has
+     * been performed.
+     */
+    private static List<String> describe(List<Move> moves) {
+        List<String> ret = moves.stream()
+            .map(m -> m.getClass().getSimpleName() + " " + m.toString().replace('x', '-'))
+            .collect(Collectors.toList());
+        Collections.sort(ret);
+        return ret;
+    }
+
+    private static Board board(IChessPiece... pieces) {
+        List<IChessPiece> list = new ArrayList<>();
+        Collections.addAll(list, pieces);
+        return new Board(list);
+    }
+
+    private static Position pos(String notation) {
+        return Position.fromChessNotation(notation);
+    }
+}
@@ -0,0 +1,88 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.ai.MoveOrderer;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that moves are ordered hash move first, then captures by
+ * MVV-LVA, then killers, then by history.
+ *
+ * @see MoveOrderer
+ */
+class MoveOrdererTest {
+    // white can take the queen with a pawn or a rook, and a knight with the
+    // rook or the king
+    private static final String FEN = "4k3/8/2q5/1P6/8/8/8/2RnK2R w - - 0 1";
+    private static final int CAPTURES = 4;
+
+    @Test
+    void capturesAreOrderedByVictimThenAttacker() {
+        Board board = Fen.parse(FEN);
+        MoveList moves = generate(board);
+        new MoveOrderer(8).score(board, moves, PackedMove.NONE, 0);
+
+        assertEquals("b5c6", PackedMove.toString(MoveOrderer.pick(moves, 0)));
+        assertEquals("c1c6", PackedMove.toString(MoveOrderer.pick(moves, 1)));
+        assertEquals("c1d1", PackedMove.toString(MoveOrderer.pick(moves, 2)));
+        assertEquals("e1d1", PackedMove.toString(MoveOrderer.pick(moves, 3)));
+        assertFalse(PackedMove.isCapture(MoveOrderer.pick(moves, CAPTURES)));
+    }
+
+    @Test
+    void hashMoveComesFirst() {
+        Board board = Fen.parse(FEN);
+        MoveList moves = generate(board);
+        int hashMove = find(moves, "e1f1");
+        new MoveOrderer(8).score(board, moves, hashMove, 0);
+
+        assertEquals(hashMove, MoveOrderer.pick(moves, 0));
+        assertEquals("b5c6", PackedMove.toString(MoveOrderer.pick(moves, 1)));
+    }
+
+    @Test
+    void killersComeBeforeOtherQuietMovesAtTheirPly() {
+        Board board = Fen.parse(FEN);
+        MoveOrderer orderer = new MoveOrderer(8);
+        MoveList moves = generate(board);
+        int killer = find(moves, "h1h7");
+        orderer.cutoff(board, killer, 1, 3);
+
+        // not a killer at another ply, but its history counts
+        orderer.score(board, moves, PackedMove.NONE, 2);
+        for (int i = 0; i < CAPTURES; i++) MoveOrderer.pick(moves, i);
+        assertEquals(killer, MoveOrderer.pick(moves, CAPTURES));
+
+        // a killer beats a quiet move with a better history
+        int other = find(moves, "h1h4");
+        orderer.cutoff(board, other, 10, 2);
+        orderer.score(board, moves, PackedMove.NONE, 3);
+        for (int i = 0; i < CAPTURES; i++) MoveOrderer.pick(moves, i);
+        assertEquals(killer, MoveOrderer.pick(moves, CAPTURES));
+        assertEquals(other, MoveOrderer.pick(moves, CAPTURES + 1));
+    }
+
+    /**
+     * Helper method: generate the moves of the side to move.
+     */
+    private static MoveList generate(Board board) {
+        MoveList moves = new MoveList();
+        new MoveGenerator().generate(board, board.getSideToMove(), 0L, moves);
+        return moves;
+    }
+
+    private static int find(MoveList moves, String move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toString(moves.get(i)).equals(move)) return moves.get(i);
+        }
+        throw new IllegalArgumentException(move);
+    }
+}
@@ -0,0 +1,121 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.ai.AiDifficulty;
+import com.syntax_highlighters.chess.ai.BookBuilder;
+import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.OpeningBook;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that opening books are written and read back, and that the
+ * AI plays from the book.
+ *
+ * @see OpeningBook
+ */
+class OpeningBookTest {
+    @Test
+    void picksOnlyBookMovesByWeight() throws IOException {
+        BookBuilder builder = new BookBuilder();
+        builder.addLine("e2e4 e7e5");
+        builder.addLine("e2e4 c7c5 # a comment");
+        builder.addLine("d2d4 d7d5");
+        OpeningBook book = open(builder);
+        assertEquals(5, book.size());
+
+        Board board = Fen.parse(Fen.START);
+        Set<String> picked = new HashSet<>();
+        SplittableRandom rand = new SplittableRandom(1);
+        for (int i = 0; i < 100; i++) picked.add(PackedMove.toString(book.pick(board, moves(board), rand)));
+        assertEquals(new HashSet<>(Arrays.asList("e2e4", "d2d4")), picked);
+
+        board.makeMove(find(board, "g1f3"));
+        assertEquals(PackedMove.NONE, book.pick(board, moves(board), rand));
+    }
+
+    @Test
+    void castlingIsEncodedAsTheKingTakingTheRook() {
+        Board board = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals(7 | 4 << 6, OpeningBook.encode(find(board, "e1g1")));
+        assertEquals(4 << 6, OpeningBook.encode(find(board, "e1c1")));
+        assertEquals(60 | 52 << 6 | 4 << 12, OpeningBook.encode(PackedMove.promotion(52, 60, BitBoard.QUEEN, false)));
+    }
+
+    @Test
+    void aiPlaysTheDefaultBookInTheOpening() {
+        OpeningBook book = OpeningBook.getDefault();
+        assertNotNull(book, "The default book is missing");
+
+        ChessGame game = new ChessGame(null, null);
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        for (int i = 0; i < 4; i++) {
+            int bookMove = book.pick(game.getBoard(), moves(game.getBoard()), new SplittableRandom());
+            assertTrue(bookMove != PackedMove.NONE, "Out of the book after " + i + " moves");
+            Move move = ai.GetMove(game);
+            assertTrue(game.getPossibleMoves().contains(move));
+            // a book move comes without a line of play after it
+            assertEquals(1, ai.GetPrincipalVariation().size());
+            game.performMove(move);
+        }
+    }
+
+    @Test
+    void rejectsFilesWhichAreNotBooks() throws IOException {
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            Files.write(path, new byte[OpeningBook.ENTRY_BYTES + 1]);
+            assertThrows(IOException.class, () -> OpeningBook.open(path));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Helper method: write a book to a temporary file and open it.
+     */
+    private static OpeningBook open(BookBuilder builder) throws IOException {
+        Path path = Files.createTempFile("book", ".bin");
+        path.toFile().deleteOnExit();
+        try (OutputStream out = Files.newOutputStream(path)) {
+            builder.write(out);
+        }
+        return OpeningBook.open(path);
+    }
+
+    private static MoveList moves(Board board) {
+        MoveList moves = new MoveList();
+        new MoveGenerator().generate(board, board.getSideToMove(), 0L, moves);
+        return moves;
+    }
+
+    private static int find(Board board, String move) {
+        MoveList moves = moves(board);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.toString(moves.get(i)).equals(move)) return moves.get(i);
+        }
+        throw new IllegalArgumentException(move);
+    }
+}
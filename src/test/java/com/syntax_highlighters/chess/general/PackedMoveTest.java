@@ -0,0 +1,88 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.engine.BitBoard;
+import com.syntax_highlighters.chess.engine.MoveGenerator;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+import com.syntax_highlighters.chess.move.MoveList;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that packed moves can be encoded, decoded and converted to
+ * and from Move objects.
+ *
+ * @see PackedMove
+ * @see MoveList
+ */
+class PackedMoveTest {
+
+    @Test
+    void fieldsSurvivePacking() {
+        int move = PackedMove.promotion(BitBoard.square(2, 7), BitBoard.square(1, 8), BitBoard.KNIGHT, true);
+        assertEquals(BitBoard.square(2, 7), PackedMove.from(move));
+        assertEquals(BitBoard.square(1, 8), PackedMove.to(move));
+        assertTrue(PackedMove.isPromotion(move));
+        assertTrue(PackedMove.isCapture(move));
+        assertEquals(BitBoard.KNIGHT, PackedMove.promotionType(move));
+        assertEquals("b7a8n", PackedMove.toString(move));
+        assertTrue(move < (1 << 16)); // fits in a short
+    }
+
+    @Test
+    void enPassantCountsAsCaptureButNotPromotion() {
+        int move = PackedMove.of(BitBoard.square(5, 5), BitBoard.square(4, 6), PackedMove.EN_PASSANT);
+        assertTrue(PackedMove.isCapture(move));
+        assertFalse(PackedMove.isPromotion(move));
+        assertFalse(PackedMove.isCastle(move));
+    }
+
+    @Test
+    void moveListIsReusedAfterClear() {
+        MoveList list = new MoveList();
+        list.add(PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH));
+        list.add(PackedMove.of(6, 21, PackedMove.QUIET));
+        list.setScore(1, 50);
+        list.swap(0, 1);
+        assertEquals(PackedMove.of(6, 21, PackedMove.QUIET), list.get(0));
+        assertEquals(50, list.score(0));
+        assertTrue(list.contains(PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH)));
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        list.add(PackedMove.of(1, 18, PackedMove.QUIET));
+        assertEquals(1, list.size());
+        assertEquals(0, list.score(0));
+    }
+
+    @Test
+    void packedMovesRoundTripThroughMoveObjectsDuringRandomGames() {
+        Random rdm = new Random(11);
+        MoveGenerator generator = new MoveGenerator();
+        MoveList moves = new MoveList();
+        for (int g = 0; g < 20; g++) {
+            ChessGame game = new ChessGame(null, null);
+            for (int i = 0; i < 150; i++) {
+                Board board = game.getBoard();
+                moves.clear();
+                generator.generate(board, game.nextPlayerColor(), 0L, moves);
+                if (moves.isEmpty()) break;
+
+                for (int j = 0; j < moves.size(); j++) {
+                    Move m = PackedMove.toMove(moves.get(j), board);
+                    assertEquals(moves.get(j), PackedMove.fromMove(m, board), PackedMove.toString(moves.get(j)));
+                }
+                int pick = moves.get(rdm.nextInt(moves.size()));
+                game.performMove(PackedMove.toMove(pick, board));
+            }
+        }
+    }
+}
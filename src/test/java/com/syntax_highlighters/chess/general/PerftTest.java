@@ -0,0 +1,112 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.Color;
+import com.syntax_highlighters.chess.chesspiece.IChessPiece;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.engine.Perft;
+import com.syntax_highlighters.chess.game.AbstractGame;
+import com.syntax_highlighters.chess.game.BurningChess;
+import com.syntax_highlighters.chess.game.ChessGame;
+import com.syntax_highlighters.chess.move.Move;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that move generation reaches the known number of positions
+ * in the reference positions, and in every game mode.
+ *
+ * @see Perft
+ */
+class PerftTest {
+    // keep the suite fast; the main method of Perft counts the full depths
+    private static final long MAX_NODES = 2500000;
+
+    @Test
+    void referencePositionsHaveKnownNodeCounts() {
+        for (Perft.Reference ref : Perft.Reference.values()) {
+            Perft perft = new Perft(ref.game());
+            for (int depth = 1; depth <= ref.maxDepth() && ref.nodes(depth) <= MAX_NODES; depth++) {
+                assertEquals(ref.nodes(depth), perft.perft(depth), ref + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void parallelCountMatchesSingleThreadedCount() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Perft.Reference ref : Perft.Reference.values()) {
+                assertEquals(ref.nodes(3), Perft.perft(ref.game(), 3, pool), ref.toString());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void divideAddsUpToPerft() {
+        ChessGame game = Perft.Reference.KIWIPETE.game();
+        Map<String, Long> divide = new Perft(game).divide(3);
+        assertEquals(48, divide.size());
+        assertEquals(Perft.Reference.KIWIPETE.nodes(3),
+                divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void perftDoesNotModifyGame() {
+        ChessGame game = Perft.Reference.POSITION_4.game();
+        String before = game.getBoard().toString();
+        long hash = game.getBoard().hash();
+        new Perft(game).perft(3);
+        assertEquals(before, game.getBoard().toString());
+        assertEquals(hash, game.getBoard().hash());
+    }
+
+    @Test
+    void burningTilesAreBlockedThroughoutTree() {
+        BurningChess start = Perft.burningGame(Fen.START, "d4", "e5", "c6", "f3");
+        assertEquals(pieceMovePerft(start, 3), new Perft(start).perft(3));
+
+        BurningChess kiwipete = Perft.burningGame(Perft.Reference.KIWIPETE.fen, "d6", "c4", "g4", "h6");
+        long expected = pieceMovePerft(kiwipete, 2);
+        assertEquals(expected, new Perft(kiwipete).perft(2));
+        assertEquals(expected, Perft.perft(kiwipete, 2, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void fenSetsUpCastlingAndSideToMove() {
+        Board board = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 0 1");
+        assertEquals(Color.BLACK, board.getSideToMove());
+        assertEquals(Board.WHITE_KINGSIDE | Board.BLACK_QUEENSIDE, board.getCastlingRights());
+
+        Board start = new Board();
+        start.setupNewGame();
+        assertEquals(start.hash(), Fen.parse(Fen.START).hash());
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8/8 w - -"));
+    }
+
+    /**
+     * Helper method: count the leaves of the move tree using the moves of the
+     * pieces themselves, filtered by the game, as an independent reference.
+     */
+    private static long pieceMovePerft(AbstractGame game, int depth) {
+        if (depth == 0) return 1;
+        long nodes = 0;
+        for (IChessPiece piece : game.getBoard().getAllPieces(game.nextPlayerColor())) {
+            for (Move m : game.allPossibleMoves(piece)) {
+                game.performMove(m);
+                nodes += pieceMovePerft(game, depth - 1);
+                game.undoMove();
+            }
+        }
+        return nodes;
+    }
+}
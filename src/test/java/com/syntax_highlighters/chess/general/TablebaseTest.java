@@ -0,0 +1,125 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.syntax_highlighters.chess.Board;
+import com.syntax_highlighters.chess.ai.AiDifficulty;
+import com.syntax_highlighters.chess.ai.MiniMaxAIPlayer;
+import com.syntax_highlighters.chess.ai.Tablebase;
+import com.syntax_highlighters.chess.ai.TablebaseGenerator;
+import com.syntax_highlighters.chess.engine.EngineExecutor;
+import com.syntax_highlighters.chess.engine.Fen;
+import com.syntax_highlighters.chess.game.ChessGame;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the generated tablebases agree with the known results
+ * of the small endgames, and that the AI plays them perfectly.
+ *
+ * @see Tablebase
+ */
+class TablebaseTest {
+    private static EngineExecutor executor;
+    private static TablebaseGenerator generator;
+    private static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        executor = new EngineExecutor();
+        generator = new TablebaseGenerator(executor);
+        generator.generate("KPK"); // and KQK and KRK, which it promotes into
+        directory = Files.createTempDirectory("tablebases");
+        generator.writeAll(directory);
+        tablebase = Tablebase.open(directory);
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        executor.shutdown();
+        // the mapped files cannot be deleted on every platform while mapped
+        directory.toFile().deleteOnExit();
+        for (java.io.File file : directory.toFile().listFiles()) file.deleteOnExit();
+    }
+
+    @Test
+    void longestMatesAreTheKnownOnes() {
+        // in moves, with the strong side to move
+        assertEquals(10, (longestWin("KQK") + 1) / 2);
+        assertEquals(16, (longestWin("KRK") + 1) / 2);
+        assertEquals(28, (longestWin("KPK") + 1) / 2);
+        assertEquals(3, tablebase.size());
+    }
+
+    @Test
+    void probesResultsForTheSideToMove() {
+        assertEquals(Tablebase.WIN, probe("8/8/8/8/8/8/1Q6/K6k w - - 0 1"));
+        assertEquals(Tablebase.LOSS, probe("8/8/8/8/8/8/1Q6/K6k b - - 0 1"));
+        // the same with the colors swapped
+        assertEquals(Tablebase.WIN, probe("k6K/1q6/8/8/8/8/8/8 b - - 0 1"));
+        // the rook is lost
+        assertEquals(Tablebase.DRAW, probe("8/8/8/8/8/8/6kR/K7 b - - 0 1"));
+        // the king in front of its pawn wins, unless it is stalemate
+        assertEquals(Tablebase.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        assertEquals(Tablebase.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        assertEquals(Tablebase.DRAW, probe("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1"));
+        // without a table, or with too few pieces to mate
+        assertEquals(Tablebase.UNKNOWN, probe("4k3/8/8/8/8/8/8/RN2K3 w - - 0 1"));
+        assertEquals(Tablebase.DRAW, probe("4k3/8/8/8/8/8/8/1N2K3 w - - 0 1"));
+    }
+
+    @Test
+    void aiMatesInTheDistanceOfTheTable() {
+        String fen = "8/8/8/3k4/8/8/8/R3K3 w - - 0 1";
+        int distance = tablebase.probeDtm(Fen.parse(fen));
+        assertTrue(distance > 0);
+
+        MiniMaxAIPlayer ai = new MiniMaxAIPlayer(AiDifficulty.Hard);
+        ai.SetTablebase(tablebase);
+        ChessGame game = ChessGame.setupTestBoard(Fen.parse(fen), Fen.parse(fen).getSideToMove());
+        for (int ply = 0; ply < distance; ply++) {
+            assertFalse(game.isGameOver(), "Mated early after " + ply + " plies");
+            game.performMove(ai.GetMove(game));
+        }
+        assertTrue(game.getBoard().checkMate(game.nextPlayerColor()));
+    }
+
+    @Test
+    void probingDoesNotAllocate() {
+        // the search probes at every node
+        Board board = Fen.parse("8/8/8/3k4/8/8/8/R3K3 w - - 0 1");
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long before = AllocationTest.allocatedBytes();
+            for (int i = 0; i < 10000; i++) {
+                tablebase.probeWdl(board);
+                tablebase.probeDtm(board);
+            }
+            best = Math.min(best, AllocationTest.allocatedBytes() - before);
+        }
+        assertEquals(0, best);
+    }
+
+    /**
+     * Helper method: get the longest win of a table, with the strong side
+     * to move, which is the first half of the table.
+     */
+    private static int longestWin(String material) {
+        byte[] table = generator.generate(material);
+        return TablebaseGenerator.longestMate(Arrays.copyOf(table, table.length / 2));
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probeWdl(Fen.parse(fen));
+    }
+}
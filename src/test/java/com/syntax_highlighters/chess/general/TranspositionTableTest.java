@@ -0,0 +1,95 @@
+package com.syntax_highlighters.chess.general;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.syntax_highlighters.chess.ai.TranspositionTable;
+import com.syntax_highlighters.chess.move.PackedMove;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ensuring that the transposition table stores and replaces entries as
+ * intended.
+ *
+ * @see TranspositionTable
+ */
+class TranspositionTableTest {
+    private static final int MOVE = PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH);
+
+    @Test
+    void storedEntryCanBeProbed() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(0x1234L, MOVE, -250, 5, TranspositionTable.LOWER);
+
+        long entry = table.probe(0x1234L);
+        assertEquals(MOVE, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(5, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(0x4321L));
+    }
+
+    @Test
+    void sizeIsGivenInMegabytes() {
+        // 16 bytes per entry
+        assertEquals(1 << 16, new TranspositionTable(1).capacity());
+        assertEquals(1 << 19, new TranspositionTable(12).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    void deepEntrySurvivesShallowerOnes() {
+        TranspositionTable table = new TranspositionTable(1);
+        int buckets = table.capacity() / 2;
+        long deep = 7;
+        long shallow = deep + buckets; // same bucket
+        long newest = deep + 2L * buckets;
+
+        table.store(deep, MOVE, 10, 8, TranspositionTable.EXACT);
+        table.store(shallow, MOVE, 20, 2, TranspositionTable.EXACT);
+        table.store(newest, MOVE, 30, 1, TranspositionTable.EXACT);
+
+        assertEquals(10, TranspositionTable.score(table.probe(deep)));
+        assertEquals(0, table.probe(shallow)); // replaced
+        assertEquals(30, TranspositionTable.score(table.probe(newest)));
+
+        // a deeper search takes over the depth-preferred entry
+        table.store(shallow, MOVE, 40, 9, TranspositionTable.UPPER);
+        assertEquals(0, table.probe(deep));
+        assertEquals(40, TranspositionTable.score(table.probe(shallow)));
+    }
+
+    @Test
+    void newSearchReplacesDeepEntriesOfOldOnes() {
+        TranspositionTable table = new TranspositionTable(1);
+        int buckets = table.capacity() / 2;
+        long old = 7;
+        long shallow = old + buckets; // same bucket
+
+        table.store(old, MOVE, 10, 8, TranspositionTable.EXACT);
+        table.newSearch();
+        table.store(shallow, MOVE, 20, 2, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(old)); // replaced
+        assertEquals(20, TranspositionTable.score(table.probe(shallow)));
+
+        // within one search, the deep entry survives again
+        long newer = old + 2L * buckets;
+        table.store(newer, MOVE, 30, 1, TranspositionTable.EXACT);
+        assertEquals(20, TranspositionTable.score(table.probe(shallow)));
+        assertEquals(30, TranspositionTable.score(table.probe(newer)));
+    }
+
+    @Test
+    void bestMoveIsKeptWhenSearchFindsNone() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(99L, MOVE, 10, 3, TranspositionTable.EXACT);
+        table.store(99L, PackedMove.NONE, 5, 4, TranspositionTable.UPPER);
+
+        long entry = table.probe(99L);
+        assertEquals(MOVE, TranspositionTable.move(entry));
+        assertEquals(4, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+    }
+}
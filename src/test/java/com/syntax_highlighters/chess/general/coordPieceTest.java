@@ -202,6 +202,31 @@ class coordPieceTest {
         checkStepsToPosition(start, end, answer);
     }
 
+    @Test
+    void ofReturnsTheSameInstanceForTheSameSquare() {
+        assertSame(Position.of(3, 2), Position.of(3, 2));
+        assertSame(Position.of(3, 2), Position.fromChessNotation("c2"));
+        assertEquals(p, Position.of(3, 2));
+    }
+
+    @Test
+    void ofReturnsOffBoardSentinelOutsideTheBoard() {
+        assertSame(Position.OFF_BOARD, Position.of(0, 4));
+        assertSame(Position.OFF_BOARD, Position.of(9, 4));
+        assertSame(Position.OFF_BOARD, Position.of(4, -1));
+        assertEquals(-1, Position.OFF_BOARD.index());
+    }
+
+    @Test
+    void indexAndFromIndexAreInverses() {
+        assertEquals(0, Position.of(1, 1).index());
+        assertEquals(63, Position.of(8, 8).index());
+        assertEquals(p.index(), Position.of(3, 2).index());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i, Position.fromIndex(i).index());
+        }
+    }
+
     /**
      * Helper method: Checks that the central position moving to goal will yield
      * the given result.